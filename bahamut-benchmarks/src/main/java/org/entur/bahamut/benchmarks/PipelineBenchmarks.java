@@ -0,0 +1,118 @@
+package org.entur.bahamut.benchmarks;
+
+import org.entur.bahamut.OrderedParallelMapper;
+import org.entur.bahamut.data.BahamutData;
+import org.entur.bahamut.data.BahamutDataBuilder;
+import org.entur.bahamut.groupOfStopPlaces.GroupOfStopPlacesBoostConfiguration;
+import org.entur.bahamut.groupOfStopPlaces.GroupOfStopPlacesPopularityCache;
+import org.entur.bahamut.groupOfStopPlaces.GroupOfStopPlacesPopularityCacheBuilder;
+import org.entur.bahamut.netex.NetexStopPlacesReader;
+import org.entur.bahamut.stopPlaces.StopPlacePeliasDocumentMapper;
+import org.entur.bahamut.stopPlaces.boostConfiguration.StopPlaceBoostConfiguration;
+import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchies;
+import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchy;
+import org.entur.bahamut.stopPlaces.stopPlacePopularityCache.StopPlacesPopularityCache;
+import org.entur.bahamut.stopPlaces.stopPlacePopularityCache.StopPlacesPopularityCacheBuilder;
+import org.entur.geocoder.csv.CSVCreator;
+import org.entur.geocoder.model.PeliasDocument;
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Benchmarks for each stage of the export: parse, hierarchy, popularity, mapping and CSV,
+ * over synthetic NeTEx data of 10k, 100k and 1M stop places.
+ * <p>
+ * Run with: java -jar bahamut-benchmarks/target/benchmarks.jar -p stopPlaces=100000
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3)
+@Measurement(iterations = 5)
+@Fork(value = 1, jvmArgsAppend = "-Xmx5000m")
+public class PipelineBenchmarks {
+
+    private static final String BOOST_CONFIG = "{\"defaultValue\":30, \"interchangeFactors\":{\"preferredInterchange\":3}, " +
+            "\"stopTypeFactors\":{\"busStation\":{\"*\":2},\"metroStation\":{\"*\":2},\"railStation\":{\"*\":2}}}";
+
+    private static final String VALIDITY_AS_OF = "2020-01-01T00:00:00Z";
+
+    @Param({"10000", "100000", "1000000"})
+    public int stopPlaces;
+
+    private SyntheticNetex.Dataset dataset;
+    private byte[] netexXml;
+    private List<StopPlaceHierarchy> stopPlaceHierarchies;
+    private BahamutData bahamutData;
+    private List<PeliasDocument> peliasDocuments;
+
+    private NetexStopPlacesReader netexStopPlacesReader;
+    private NetexStopPlacesReader leanNetexStopPlacesReader;
+    private StopPlacesPopularityCacheBuilder stopPlacesPopularityCacheBuilder;
+    private GroupOfStopPlacesPopularityCacheBuilder groupOfStopPlacesPopularityCacheBuilder;
+    private StopPlacePeliasDocumentMapper stopPlacePeliasDocumentMapper;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        dataset = SyntheticNetex.generate(stopPlaces, 42);
+        netexXml = SyntheticNetex.toXml(dataset);
+
+        netexStopPlacesReader = new NetexStopPlacesReader(false, true);
+        leanNetexStopPlacesReader = new NetexStopPlacesReader(true, true);
+        stopPlacesPopularityCacheBuilder = new StopPlacesPopularityCacheBuilder(new StopPlaceBoostConfiguration(BOOST_CONFIG));
+        groupOfStopPlacesPopularityCacheBuilder = new GroupOfStopPlacesPopularityCacheBuilder(
+                new GroupOfStopPlacesBoostConfiguration(1.0));
+        stopPlacePeliasDocumentMapper = new StopPlacePeliasDocumentMapper(new OrderedParallelMapper(1, 10000));
+
+        stopPlaceHierarchies = StopPlaceHierarchies.create(dataset.stopPlaces());
+        bahamutData = new BahamutDataBuilder(
+                stopPlacesPopularityCacheBuilder, groupOfStopPlacesPopularityCacheBuilder, VALIDITY_AS_OF, "Europe/Oslo")
+                .build(dataset.stopPlaces(), dataset.groupOfStopPlaces());
+        peliasDocuments = stopPlacePeliasDocumentMapper.toPeliasDocuments(bahamutData).toList();
+    }
+
+    @Benchmark
+    public void parse(Blackhole blackhole) {
+        netexStopPlacesReader.read(new ByteArrayInputStream(netexXml), blackhole::consume, blackhole::consume);
+    }
+
+    @Benchmark
+    public void parseLean(Blackhole blackhole) {
+        leanNetexStopPlacesReader.read(new ByteArrayInputStream(netexXml), blackhole::consume, blackhole::consume);
+    }
+
+    @Benchmark
+    public Object createStopPlaceHierarchies() {
+        return StopPlaceHierarchies.create(dataset.stopPlaces());
+    }
+
+    @Benchmark
+    public StopPlacesPopularityCache buildStopPlacesPopularityCache() {
+        return stopPlacesPopularityCacheBuilder.build(stopPlaceHierarchies);
+    }
+
+    @Benchmark
+    public void mapStopPlacesToPeliasDocuments(Blackhole blackhole) {
+        stopPlacePeliasDocumentMapper.toPeliasDocuments(bahamutData).forEach(blackhole::consume);
+    }
+
+    @Benchmark
+    public GroupOfStopPlacesPopularityCache buildGroupOfStopPlacesPopularityCache() {
+        return groupOfStopPlacesPopularityCacheBuilder.build(
+                bahamutData.groupOfStopPlaces(), bahamutData.stopPlacesPopularityCache());
+    }
+
+    @Benchmark
+    public long createCSV() throws IOException {
+        try (InputStream csv = CSVCreator.create(peliasDocuments.stream())) {
+            return csv.transferTo(OutputStream.nullOutputStream());
+        }
+    }
+}
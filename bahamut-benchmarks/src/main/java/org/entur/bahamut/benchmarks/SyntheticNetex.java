@@ -0,0 +1,204 @@
+package org.entur.bahamut.benchmarks;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBElement;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Marshaller;
+import org.rutebanken.netex.model.*;
+
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLOutputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamWriter;
+import java.io.ByteArrayOutputStream;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+/**
+ * Generator for synthetic, but realistically distributed, Tiamat like stop place exports of any size.
+ * <p>
+ * About 8% of the stop places are multimodal parents with two or three children, onstreet bus stops dominate
+ * the stop types, a third of the stop places have translations or labels as alternative names,
+ * and there is one group of stop places per fifty stop places. Generation is deterministic for a given seed.
+ */
+public final class SyntheticNetex {
+
+    private static final String NETEX_NAMESPACE = "http://www.netex.org.uk/netex";
+    private static final String KEY_IS_PARENT_STOP_PLACE = "IS_PARENT_STOP_PLACE";
+
+    private static final StopTypeEnumeration[] STOP_TYPES = {
+            StopTypeEnumeration.ONSTREET_BUS, StopTypeEnumeration.ONSTREET_BUS, StopTypeEnumeration.ONSTREET_BUS,
+            StopTypeEnumeration.ONSTREET_BUS, StopTypeEnumeration.ONSTREET_BUS, StopTypeEnumeration.ONSTREET_BUS,
+            StopTypeEnumeration.ONSTREET_BUS, StopTypeEnumeration.BUS_STATION, StopTypeEnumeration.RAIL_STATION,
+            StopTypeEnumeration.ONSTREET_TRAM, StopTypeEnumeration.METRO_STATION, StopTypeEnumeration.FERRY_STOP,
+            StopTypeEnumeration.HARBOUR_PORT, StopTypeEnumeration.AIRPORT
+    };
+
+    public record Dataset(List<StopPlace> stopPlaces, List<GroupOfStopPlaces> groupOfStopPlaces) {
+    }
+
+    private SyntheticNetex() {
+    }
+
+    public static Dataset generate(int stopPlaceCount, long seed) {
+        var random = new Random(seed);
+        List<StopPlace> stopPlaces = new ArrayList<>(stopPlaceCount);
+
+        while (stopPlaces.size() < stopPlaceCount) {
+            int remaining = stopPlaceCount - stopPlaces.size();
+            if (remaining > 3 && random.nextInt(100) < 8) {
+                StopPlace parent = stopPlace(stopPlaces.size(), random)
+                        .withKeyList(new KeyListStructure().withKeyValue(
+                                new KeyValueStructure().withKey(KEY_IS_PARENT_STOP_PLACE).withValue("true")));
+                stopPlaces.add(parent);
+                int children = 2 + random.nextInt(2);
+                for (int i = 0; i < children; i++) {
+                    stopPlaces.add(withQuays(stopPlace(stopPlaces.size(), random), random)
+                            .withParentSiteRef(new SiteRefStructure().withRef(parent.getId()).withVersion("1")));
+                }
+            } else {
+                stopPlaces.add(withQuays(stopPlace(stopPlaces.size(), random), random));
+            }
+        }
+
+        List<GroupOfStopPlaces> groupOfStopPlaces = new ArrayList<>();
+        for (int i = 0; i < stopPlaceCount / 50; i++) {
+            groupOfStopPlaces.add(groupOfStopPlaces(i, stopPlaces, random));
+        }
+
+        return new Dataset(stopPlaces, groupOfStopPlaces);
+    }
+
+    /**
+     * Write the dataset as a NeTEx publication delivery with a single SiteFrame.
+     */
+    public static byte[] toXml(Dataset dataset) {
+        try {
+            var outputStream = new ByteArrayOutputStream();
+            XMLStreamWriter writer = XMLOutputFactory.newFactory().createXMLStreamWriter(outputStream, "UTF-8");
+            Marshaller marshaller = JAXBContext.newInstance(PublicationDeliveryStructure.class).createMarshaller();
+            marshaller.setProperty(Marshaller.JAXB_FRAGMENT, true);
+
+            writer.writeStartDocument("UTF-8", "1.0");
+            writer.setDefaultNamespace(NETEX_NAMESPACE);
+            writer.writeStartElement(NETEX_NAMESPACE, "PublicationDelivery");
+            writer.writeDefaultNamespace(NETEX_NAMESPACE);
+            writer.writeAttribute("version", "1.0");
+            writeElement(writer, "PublicationTimestamp", "2022-05-01T00:00:00");
+            writeElement(writer, "ParticipantRef", "NSR");
+            writer.writeStartElement(NETEX_NAMESPACE, "dataObjects");
+            writer.writeStartElement(NETEX_NAMESPACE, "SiteFrame");
+            writer.writeAttribute("id", "NSR:SiteFrame:1");
+            writer.writeAttribute("version", "1");
+
+            writer.writeStartElement(NETEX_NAMESPACE, "stopPlaces");
+            for (StopPlace stopPlace : dataset.stopPlaces()) {
+                marshaller.marshal(new JAXBElement<>(new QName(NETEX_NAMESPACE, "StopPlace"), StopPlace.class, stopPlace), writer);
+            }
+            writer.writeEndElement();
+
+            writer.writeStartElement(NETEX_NAMESPACE, "groupsOfStopPlaces");
+            for (GroupOfStopPlaces groupOfStopPlaces : dataset.groupOfStopPlaces()) {
+                marshaller.marshal(new JAXBElement<>(new QName(NETEX_NAMESPACE, "GroupOfStopPlaces"), GroupOfStopPlaces.class, groupOfStopPlaces), writer);
+            }
+            writer.writeEndElement();
+
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeEndElement();
+            writer.writeEndDocument();
+            writer.close();
+            return outputStream.toByteArray();
+        } catch (XMLStreamException | JAXBException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void writeElement(XMLStreamWriter writer, String name, String value) throws XMLStreamException {
+        writer.writeStartElement(NETEX_NAMESPACE, name);
+        writer.writeCharacters(value);
+        writer.writeEndElement();
+    }
+
+    private static StopPlace stopPlace(int index, Random random) {
+        var stopPlace = new StopPlace()
+                .withId("NSR:StopPlace:" + index)
+                .withVersion(String.valueOf(1 + random.nextInt(20)))
+                .withName(new MultilingualString().withLang("nor").withValue(name(index, random)))
+                .withCentroid(centroid(random))
+                .withStopPlaceType(STOP_TYPES[random.nextInt(STOP_TYPES.length)])
+                .withTopographicPlaceRef(new TopographicPlaceRefStructure()
+                        .withRef(String.format("KVE:TopographicPlace:%04d", random.nextInt(356))))
+                .withValidBetween(validBetween(random));
+
+        var tariffZones = new TariffZoneRefs_RelStructure();
+        for (int i = 0, zones = 1 + random.nextInt(2); i < zones; i++) {
+            tariffZones.withTariffZoneRef(new TariffZoneRef()
+                    .withRef(String.format("AUT%02d:TariffZone:%d", random.nextInt(20), random.nextInt(500))));
+        }
+        stopPlace.withTariffZones(tariffZones);
+
+        int alternativeNames = random.nextInt(100);
+        if (alternativeNames < 20) {
+            stopPlace.withAlternativeNames(new AlternativeNames_RelStructure().withAlternativeName(
+                    new AlternativeName().withNameType(NameTypeEnumeration.TRANSLATION)
+                            .withName(new MultilingualString().withLang("eng").withValue(name(index, random) + " station"))));
+        } else if (alternativeNames < 33) {
+            stopPlace.withAlternativeNames(new AlternativeNames_RelStructure().withAlternativeName(
+                    new AlternativeName().withNameType(NameTypeEnumeration.LABEL)
+                            .withName(new MultilingualString().withLang("no").withValue(name(index, random)))));
+        }
+
+        if (random.nextInt(100) < 10) {
+            stopPlace.withWeighting(InterchangeWeightingEnumeration.PREFERRED_INTERCHANGE);
+        }
+        if (random.nextInt(100) < 15) {
+            stopPlace.withDescription(new MultilingualString().withLang("nor").withValue("Description of " + index));
+        }
+        return stopPlace;
+    }
+
+    private static StopPlace withQuays(StopPlace stopPlace, Random random) {
+        var quays = new Quays_RelStructure();
+        for (int i = 0, count = 1 + random.nextInt(4); i < count; i++) {
+            quays.withQuayRefOrQuay(new Quay().withId(stopPlace.getId().replace("StopPlace", "Quay") + "-" + i));
+        }
+        return stopPlace.withQuays(quays);
+    }
+
+    private static GroupOfStopPlaces groupOfStopPlaces(int index, List<StopPlace> stopPlaces, Random random) {
+        var members = new StopPlaceRefs_RelStructure();
+        for (int i = 0, count = 2 + random.nextInt(5); i < count; i++) {
+            members.withStopPlaceRef(new StopPlaceRefStructure()
+                    .withRef(stopPlaces.get(random.nextInt(stopPlaces.size())).getId()));
+        }
+        return new GroupOfStopPlaces()
+                .withId("NSR:GroupOfStopPlaces:" + index)
+                .withVersion("1")
+                .withName(new MultilingualString().withLang("nor").withValue(name(index, random)))
+                .withCentroid(centroid(random))
+                .withMembers(members);
+    }
+
+    private static String name(int index, Random random) {
+        return (char) ('A' + random.nextInt(26)) + "name " + index;
+    }
+
+    private static SimplePoint_VersionStructure centroid(Random random) {
+        return new SimplePoint_VersionStructure().withLocation(new LocationStructure()
+                .withLatitude(BigDecimal.valueOf(58 + random.nextDouble() * 13))
+                .withLongitude(BigDecimal.valueOf(5 + random.nextDouble() * 25)));
+    }
+
+    private static ValidBetween validBetween(Random random) {
+        var from = LocalDateTime.of(2015, 1, 1, 0, 0).plusDays(random.nextInt(2000));
+        var validBetween = new ValidBetween().withFromDate(from);
+        if (random.nextInt(100) < 5) {
+            validBetween.withToDate(from.plusDays(30));
+        }
+        return validBetween;
+    }
+}
@@ -0,0 +1,42 @@
+package org.entur.bahamut;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.http.HttpStatus;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.PostMapping;
+import org.springframework.web.bind.annotation.RequestMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+/**
+ * Triggers exports and reports their status in service mode.
+ */
+@RestController
+@RequestMapping("/exports")
+@ConditionalOnProperty(value = "bahamut.service.enabled", havingValue = "true")
+public class BahamutExportController {
+
+    private final BahamutExporter bahamutExporter;
+
+    public BahamutExportController(BahamutExporter bahamutExporter) {
+        this.bahamutExporter = bahamutExporter;
+    }
+
+    /**
+     * Start an export, reading the stop places files again unless reload=false.
+     * Responds 409 Conflict with the status of the running export if there is one.
+     */
+    @PostMapping
+    public ResponseEntity<ExportStatus> export(@RequestParam(defaultValue = "true") boolean reload) {
+        if (!bahamutExporter.trigger(reload)) {
+            return ResponseEntity.status(HttpStatus.CONFLICT).body(bahamutExporter.status());
+        }
+        return ResponseEntity.accepted().body(bahamutExporter.status());
+    }
+
+    @GetMapping("/status")
+    public ExportStatus status() {
+        return bahamutExporter.status();
+    }
+}
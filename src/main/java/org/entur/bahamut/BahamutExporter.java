@@ -0,0 +1,193 @@
+package org.entur.bahamut;
+
+import org.entur.bahamut.data.BahamutData;
+import org.entur.bahamut.io.ContentDigest;
+import org.entur.bahamut.netex.NetexStopPlaces;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.time.Instant;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Runs the export, either once in the calling thread for the nightly job, or triggered over http or by
+ * bahamut.service.schedule in service mode, where the JVM, the Spring context and the compiled boost configuration
+ * stay warm between exports. One export runs at a time. The bahamut data of the latest export is kept in memory,
+ * so an export can be rerun from it without downloading and parsing the stop places files again.
+ */
+@Component
+public class BahamutExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(BahamutExporter.class);
+
+    private final BahamutService bs;
+    private final boolean csvStreaming;
+    private final int pipelineQueueCapacity;
+    private final int loadParallelism;
+    private final int readParallelism;
+    private final AtomicBoolean running = new AtomicBoolean();
+    private final ExecutorService executorService = Executors.newSingleThreadExecutor(runnable -> {
+        Thread thread = new Thread(runnable, "bahamut-export");
+        thread.setDaemon(true);
+        return thread;
+    });
+
+    private volatile ExportStatus status = ExportStatus.idle();
+    private volatile BahamutData latestBahamutData;
+
+    public BahamutExporter(BahamutService bs,
+                           @Value("${bahamut.csv.streaming:false}") boolean csvStreaming,
+                           @Value("${bahamut.pipeline.queue.capacity:1}") int pipelineQueueCapacity,
+                           @Value("${bahamut.pipeline.load.parallelism:1}") int loadParallelism,
+                           @Value("${bahamut.pipeline.read.parallelism:${bahamut.netex.parallelism:1}}") int readParallelism) {
+        this.bs = bs;
+        this.csvStreaming = csvStreaming;
+        this.pipelineQueueCapacity = pipelineQueueCapacity;
+        this.loadParallelism = loadParallelism;
+        this.readParallelism = readParallelism;
+    }
+
+    /**
+     * Run the export in the calling thread, failing if another export is running.
+     *
+     * @param reload read the stop places files again, rather than exporting the bahamut data of the latest export,
+     *               with its validity evaluated again.
+     */
+    public ExportStatus export(boolean reload) {
+        if (!running.compareAndSet(false, true)) {
+            throw new IllegalStateException("An export is already running");
+        }
+        try {
+            return runExport(reload);
+        } finally {
+            running.set(false);
+        }
+    }
+
+    /**
+     * Start the export in the background.
+     *
+     * @return false if another export is running.
+     */
+    public boolean trigger(boolean reload) {
+        if (!running.compareAndSet(false, true)) {
+            return false;
+        }
+        status = ExportStatus.running(Instant.now());
+        executorService.execute(() -> {
+            try {
+                runExport(reload);
+            } catch (RuntimeException e) {
+                logger.error("Export failed", e);
+            } finally {
+                running.set(false);
+            }
+        });
+        return true;
+    }
+
+    @Scheduled(cron = "${bahamut.service.schedule:-}")
+    public void scheduledExport() {
+        if (!trigger(true)) {
+            logger.warn("Skipping scheduled export, an export is already running");
+        }
+    }
+
+    public ExportStatus status() {
+        return status;
+    }
+
+    private ExportStatus runExport(boolean reload) {
+        ExportStatus runningStatus = ExportStatus.running(Instant.now());
+        status = runningStatus;
+        try {
+            BahamutData bahamutData = latestBahamutData;
+            if (reload || bahamutData == null) {
+                // Let go of the previous bahamut data before reading the new one, not to hold both in memory.
+                latestBahamutData = null;
+                bahamutData = readBahamutData();
+                latestBahamutData = bahamutData;
+            } else {
+                logger.info("Exporting the bahamut data of the latest export");
+                bahamutData = bs.reevaluateValidity(bahamutData);
+                latestBahamutData = bahamutData;
+            }
+            status = runningStatus.succeeded(exportBahamutData(bahamutData));
+        } catch (RuntimeException e) {
+            status = runningStatus.failed(e.getMessage());
+            throw e;
+        }
+        return status;
+    }
+
+    private BahamutData readBahamutData() {
+        // With several stop places files, the next one is loaded while the previous one is unzipped and parsed.
+        // The load stage only downloads the whole file with blobstore.download.parallel.enabled, otherwise
+        // it opens the blob stream, which is then downloaded by the read stage as it is consumed.
+        List<NetexStopPlaces> netexFiles = StagedPipeline.of(bs.getStopPlacesFiles(), pipelineQueueCapacity)
+                .then("load", loadParallelism, bs::loadStopPlacesFile)
+                .then("read", readParallelism, bs::readStopPlacesFile)
+                .run().stream()
+                .flatMap(List::stream)
+                .toList();
+        return bs.createBahamutData(netexFiles);
+    }
+
+    /**
+     * The delta is only exported along with a csv file copied to haya, as nothing changed otherwise.
+     * The run report is only uploaded along with a csv file uploaded to bahamut, and else only logged.
+     *
+     * @return the output filename, or null if no csv files were generated, or they were unchanged and not uploaded.
+     */
+    private String exportBahamutData(BahamutData bahamutData) {
+        if (csvStreaming) {
+            String outputFilename = bs.getOutputFilename();
+            ContentDigest csvDigest = new ContentDigest();
+            bs.streamCSVFileToBahamut(bs.createPeliasDocumentsStream(bahamutData), outputFilename, csvDigest);
+            if (bs.isUnchangedSinceLatestUpload(csvDigest)) {
+                logger.info("Streamed zipped csv file to bahamut, unchanged since the latest file so not copied to haya");
+            } else {
+                bs.copyCSVFileAsLatestToConfiguredBucket(outputFilename);
+                bs.uploadLatestDigest(csvDigest);
+                logger.info("Streamed zipped csv file to bahamut and copied it to haya");
+                bs.exportDelta(bahamutData, outputFilename);
+            }
+            bs.uploadRunReport(outputFilename);
+            return outputFilename;
+        }
+
+        List<InputStream> csvFiles = bs.createCSVFiles(bahamutData);
+
+        if (!csvFiles.isEmpty()) {
+            String outputFilename = bs.getOutputFilename();
+            ContentDigest csvDigest = new ContentDigest();
+            // Closing the zip deletes it from the working directory when it was written there.
+            try (InputStream csvZipFile = bs.zipCSVFile(csvFiles.stream().map(csvDigest::digest).toList(), outputFilename)) {
+                if (bs.isUnchangedSinceLatestUpload(csvDigest)) {
+                    logger.info("Zipped csv files unchanged since the latest file, not uploaded to bahamut and haya");
+                    bs.logRunReport(outputFilename);
+                    return null;
+                }
+                bs.uploadCSVFile(csvZipFile, outputFilename);
+                bs.copyCSVFileAsLatestToConfiguredBucket(outputFilename);
+                bs.uploadLatestDigest(csvDigest);
+                logger.info("Uploaded zipped csv files to bahamut and haya");
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            bs.exportDelta(bahamutData, outputFilename);
+            bs.uploadRunReport(outputFilename);
+            return outputFilename;
+        }
+        logger.info("No csv files generated");
+        return null;
+    }
+}
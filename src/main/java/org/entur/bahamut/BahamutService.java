@@ -1,17 +1,28 @@
 package org.entur.bahamut;
 
+import com.fasterxml.jackson.databind.ObjectMapper;
 import org.entur.bahamut.blobStore.BahamutBlobStoreService;
 import org.entur.bahamut.blobStore.KakkaBlobStoreService;
+import org.entur.bahamut.csv.StreamingCSVZipWriter;
 import org.entur.bahamut.data.BahamutDataBuilder;
+import org.entur.bahamut.data.StringPool;
 import org.entur.bahamut.groupOfStopPlaces.GroupOfStopPlacesPeliasDocumentMapper;
 import org.entur.bahamut.data.BahamutData;
+import org.entur.bahamut.delta.DeltaExporter;
+import org.entur.bahamut.io.ContentDigest;
+import org.entur.bahamut.io.MappedFileInputStream;
+import org.entur.bahamut.metrics.ExportMetrics;
+import org.entur.bahamut.metrics.RunReport;
+import org.entur.bahamut.netex.NetexStopPlaces;
+import org.entur.bahamut.netex.NetexStopPlacesReader;
 import org.entur.bahamut.stopPlaces.StopPlacePeliasDocumentMapper;
 import org.entur.geocoder.Utilities;
 import org.entur.geocoder.ZipUtilities;
 import org.entur.geocoder.csv.CSVCreator;
 import org.entur.geocoder.model.PeliasDocument;
 import org.entur.netex.NetexParser;
-import org.entur.netex.index.api.NetexEntitiesIndex;
+import org.rutebanken.netex.model.GroupOfStopPlaces;
+import org.rutebanken.netex.model.StopPlace;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Value;
@@ -23,22 +34,53 @@ import java.io.*;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.*;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+import java.util.zip.ZipOutputStream;
 
 @Service
 public class BahamutService {
 
     private static final Logger logger = LoggerFactory.getLogger(BahamutService.class);
 
+    /**
+     * One or more stop places files, comma separated.
+     */
     @Value("${blobstore.gcs.kakka.tiamat.geocoder.file:tiamat/geocoder/tiamat_export_geocoder_latest.zip}")
     private String tiamatGeocoderFile;
 
     @Value("${bahamut.workdir:/tmp/bahamut/geocoder}")
     private String bahamutWorkDir;
 
+    @Value("${bahamut.metrics.report.enabled:false}")
+    private boolean runReportUpload;
+
+    @Value("${bahamut.metrics.report.folder:reports}")
+    private String runReportFolder;
+
+    private final AtomicInteger workDirIndex = new AtomicInteger();
     private final boolean gosInclude;
+    private final boolean netexStreaming;
+    private final boolean unzipStreaming;
+    private final boolean deltaExport;
+    private final int netexParallelism;
+    private final int csvParts;
+    private final boolean skipUnchanged;
+    private final boolean uploadInParts;
+    private final boolean unzipMmap;
     private final BahamutDataBuilder bahamutDataBuilder;
+    private final NetexStopPlacesReader netexStopPlacesReader;
+    private final DeltaExporter deltaExporter;
+    private final StreamingCSVZipWriter streamingCSVZipWriter;
+    private final ExportMetrics exportMetrics;
     private final KakkaBlobStoreService kakkaBlobStoreService;
     private final BahamutBlobStoreService bahamutBlobStoreService;
     private final StopPlacePeliasDocumentMapper stopPlacesToPeliasDocument;
@@ -46,17 +88,51 @@ public class BahamutService {
 
     public BahamutService(
             BahamutDataBuilder bahamutDataBuilder,
+            NetexStopPlacesReader netexStopPlacesReader,
+            DeltaExporter deltaExporter,
+            StreamingCSVZipWriter streamingCSVZipWriter,
+            ExportMetrics exportMetrics,
             KakkaBlobStoreService kakkaBlobStoreService,
             BahamutBlobStoreService bahamutBlobStoreService,
             StopPlacePeliasDocumentMapper stopPlacesToPeliasDocument,
             GroupOfStopPlacesPeliasDocumentMapper groupOfStopPlacesPeliasDocument,
-            @Value("${bahamut.gos.include:true}") boolean gosInclude) {
+            @Value("${bahamut.gos.include:true}") boolean gosInclude,
+            @Value("${bahamut.netex.streaming:false}") boolean netexStreaming,
+            @Value("${bahamut.unzip.streaming:false}") boolean unzipStreaming,
+            @Value("${bahamut.delta.enabled:false}") boolean deltaExport,
+            @Value("${bahamut.netex.parallelism:1}") int netexParallelism,
+            @Value("${bahamut.csv.parts:1}") int csvParts,
+            @Value("${bahamut.upload.skip-unchanged:false}") boolean skipUnchanged,
+            @Value("${bahamut.upload.parts.enabled:false}") boolean uploadInParts,
+            @Value("${bahamut.unzip.mmap:false}") boolean unzipMmap) {
         this.bahamutDataBuilder = bahamutDataBuilder;
+        this.netexStopPlacesReader = netexStopPlacesReader;
+        this.deltaExporter = deltaExporter;
+        this.streamingCSVZipWriter = streamingCSVZipWriter;
+        this.exportMetrics = exportMetrics;
         this.kakkaBlobStoreService = kakkaBlobStoreService;
         this.bahamutBlobStoreService = bahamutBlobStoreService;
         this.stopPlacesToPeliasDocument = stopPlacesToPeliasDocument;
         this.groupOfStopPlacesPeliasDocument = groupOfStopPlacesPeliasDocument;
         this.gosInclude = gosInclude;
+        this.netexStreaming = netexStreaming;
+        this.unzipStreaming = unzipStreaming;
+        this.deltaExport = deltaExport;
+        this.netexParallelism = netexParallelism;
+        this.csvParts = csvParts;
+        this.skipUnchanged = skipUnchanged;
+        this.uploadInParts = uploadInParts;
+        this.unzipMmap = unzipMmap;
+    }
+
+    /**
+     * The stop places files to export, configured as a comma separated list, e.g. one file per county.
+     */
+    public List<String> getStopPlacesFiles() {
+        return Arrays.stream(tiamatGeocoderFile.split(","))
+                .map(String::trim)
+                .filter(file -> !file.isEmpty())
+                .toList();
     }
 
     @Retryable(
@@ -65,65 +141,283 @@ public class BahamutService {
             backoff = @Backoff(
                     delayExpression = "${bahamut.retry.maxDelay:5000}",
                     multiplierExpression = "${bahamut.retry.backoff.multiplier:3}"))
-    public InputStream loadStopPlacesFile() {
-        logger.info("Loading stop places file");
-        return kakkaBlobStoreService.getBlob(tiamatGeocoderFile);
-    }
-
-    public Path unzipStopPlacesToWorkingDirectory(InputStream inputStream) {
-        logger.info("Unzipping stop places file");
-        ZipUtilities.unzipFile(inputStream, bahamutWorkDir);
-        try (Stream<Path> paths = Files.walk(Paths.get(bahamutWorkDir))) {
-            return paths
-                    .filter(Utilities::isValidFile)
-                    .findFirst()
-                    .orElseThrow(() -> new RuntimeException("Unzipped file not found."));
-        } catch (Exception e) {
+    public InputStream loadStopPlacesFile(String stopPlacesFile) {
+        logger.info("Loading stop places file " + stopPlacesFile);
+        // The blob is either downloaded up front, or read from the blob store as it is consumed,
+        // so both the download and the reads of the returned stream are recorded as the load stage.
+        return exportMetrics.lazyStage("load", exportMetrics.stage("load", () ->
+                exportMetrics.countBytesOut("load", kakkaBlobStoreService.downloadBlob(stopPlacesFile))));
+    }
+
+    /**
+     * Read the Netex files in one stop places zip archive, streamed out of it, or unzipped to its own directory
+     * in the working directory and read concurrently with at most bahamut.netex.parallelism threads.
+     */
+    public List<NetexStopPlaces> readStopPlacesFile(InputStream stopPlacesFile) {
+        if (unzipStreaming) {
+            return streamStopPlacesNetexEntries(stopPlacesFile);
+        }
+        Path workDir = Paths.get(bahamutWorkDir, String.valueOf(workDirIndex.getAndIncrement()));
+        try {
+            List<Path> netexPaths;
+            // Closed as soon as it is unzipped, as the zip archive may not be read to the end,
+            // so a downloaded file is deleted and the load stage is recorded before the files are parsed.
+            try (stopPlacesFile) {
+                netexPaths = unzipStopPlacesToWorkingDirectory(stopPlacesFile, workDir);
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            return invokeAll(netexPaths.stream()
+                    .<Callable<NetexStopPlaces>>map(netexPath -> () -> readNetexFile(netexPath))
+                    .toList(), netexParallelism);
+        } finally {
+            // The unzipped files are read into memory, so they are not kept for the next export.
+            deleteRecursively(workDir);
+        }
+    }
+
+    private static void deleteRecursively(Path path) {
+        if (!Files.exists(path)) {
+            return;
+        }
+        try (Stream<Path> paths = Files.walk(path)) {
+            for (Path file : paths.sorted(Comparator.reverseOrder()).toList()) {
+                Files.delete(file);
+            }
+        } catch (IOException e) {
+            logger.warn("Could not delete " + path + ": " + e.getMessage());
+        }
+    }
+
+    /**
+     * Evaluate the validity of the bahamut data of an earlier export again, as of the time of this export.
+     */
+    public BahamutData reevaluateValidity(BahamutData bahamutData) {
+        logger.info("Evaluating the validity of the bahamut data of the latest export again");
+        return exportMetrics.stage("build", () -> bahamutDataBuilder.withValidity(bahamutData));
+    }
+
+    /**
+     * Merge the stop places of all Netex files by id, and compute the hierarchies and popularity.
+     */
+    public BahamutData createBahamutData(List<NetexStopPlaces> netexFiles) {
+        logger.info("Creating bahamut data object");
+        StringPool stringPool = exportMetrics.stringPool();
+        return exportMetrics.stage("build", () -> bahamutDataBuilder.build(netexFiles, stringPool));
+    }
+
+    /**
+     * Read the Netex files straight out of the zip archive stream, one entry at a time, without touching the disk.
+     */
+    public List<NetexStopPlaces> streamStopPlacesNetexEntries(InputStream inputStream) {
+        logger.info("Streaming stop places files out of the zip archive");
+        List<NetexStopPlaces> netexFiles = new ArrayList<>();
+        try (var zipInputStream = new ZipInputStream(new BufferedInputStream(
+                exportMetrics.countBytesIn("unzip", inputStream)))) {
+            ZipEntry zipEntry;
+            while ((zipEntry = zipInputStream.getNextEntry()) != null) {
+                if (isNetexFile(zipEntry)) {
+                    logger.info("Reading Netex file " + zipEntry.getName());
+                    netexFiles.add(readNetexFile(new FilterInputStream(zipInputStream) {
+                        @Override
+                        public void close() {
+                            // The entry is closed by moving on to the next one.
+                        }
+                    }));
+                }
+            }
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
+        if (netexFiles.isEmpty()) {
+            throw new RuntimeException("Netex file not found in zip archive.");
+        }
+        return netexFiles;
     }
 
-    public NetexEntitiesIndex parseStopPlacesNetexFile(Path path) {
-        logger.info("Parsing the stop place Netex file");
-        var parser = new NetexParser();
-        try (InputStream inputStream = new FileInputStream(path.toFile())) {
-            return parser.parse(inputStream);
-        } catch (Exception e) {
+    private static boolean isNetexFile(ZipEntry zipEntry) {
+        String fileName = Paths.get(zipEntry.getName()).getFileName().toString();
+        return !zipEntry.isDirectory() && !fileName.startsWith(".") && fileName.toLowerCase().endsWith(".xml");
+    }
+
+    public List<Path> unzipStopPlacesToWorkingDirectory(InputStream inputStream, Path workDir) {
+        logger.info("Unzipping stop places file to " + workDir);
+        return exportMetrics.stage("unzip", () -> {
+            ZipUtilities.unzipFile(exportMetrics.countBytesIn("unzip", inputStream), workDir.toString());
+            try (Stream<Path> paths = Files.walk(workDir)) {
+                List<Path> netexPaths = paths
+                        .filter(Utilities::isValidFile)
+                        .sorted()
+                        .toList();
+                if (netexPaths.isEmpty()) {
+                    throw new RuntimeException("Unzipped file not found.");
+                }
+                return netexPaths;
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        });
+    }
+
+    /**
+     * Read an unzipped Netex file, memory mapped with bahamut.unzip.mmap, or through a buffered stream.
+     */
+    private NetexStopPlaces readNetexFile(Path netexPath) {
+        logger.info("Reading Netex file " + netexPath);
+        try (InputStream inputStream = unzipMmap
+                ? new MappedFileInputStream(netexPath)
+                : new BufferedInputStream(new FileInputStream(netexPath.toFile()))) {
+            return readNetexFile(inputStream);
+        } catch (IOException e) {
             throw new RuntimeException(e);
         }
     }
 
-    public BahamutData createBahamutData(NetexEntitiesIndex netexEntitiesIndex) {
-        logger.info("Creating bahamut data object");
-        return bahamutDataBuilder.build(netexEntitiesIndex);
+    /**
+     * Read the stop places and group of stop places in the Netex file, either by streaming only them
+     * out of it, or by parsing the complete file into a NetexEntitiesIndex.
+     */
+    public NetexStopPlaces readNetexFile(InputStream inputStream) {
+        InputStream netexInputStream = exportMetrics.countBytesIn("parse", inputStream);
+        if (netexStreaming) {
+            List<StopPlace> stopPlaces = new ArrayList<>();
+            List<GroupOfStopPlaces> groupOfStopPlaces = new ArrayList<>();
+            exportMetrics.stage("parse", () -> netexStopPlacesReader.read(
+                    netexInputStream, stopPlaces::add, groupOfStopPlaces::add));
+            return new NetexStopPlaces(stopPlaces, groupOfStopPlaces);
+        }
+        var parser = new NetexParser();
+        return exportMetrics.stage("parse", () -> {
+            try {
+                return NetexStopPlaces.of(parser.parse(netexInputStream));
+            } catch (Exception e) {
+                throw new RuntimeException(e);
+            }
+        });
     }
 
     public Stream<PeliasDocument> createPeliasDocumentsStream(BahamutData bahamutData) {
         logger.info("Creating PeliasDocuments stream");
+        // The documents are mapped as the stream is consumed, so the map stage is recorded over its consumption.
         Stream<PeliasDocument> stopPlacesStream =
                 stopPlacesToPeliasDocument.toPeliasDocuments(bahamutData);
 
         if (gosInclude) {
             Stream<PeliasDocument> groupOfStopPlacesStream =
                     groupOfStopPlacesPeliasDocument.toPeliasDocuments(bahamutData);
-            return Stream.concat(stopPlacesStream, groupOfStopPlacesStream);
+            return exportMetrics.lazyStage("map", Stream.concat(stopPlacesStream, groupOfStopPlacesStream));
         } else {
-            return stopPlacesStream;
+            return exportMetrics.lazyStage("map", stopPlacesStream);
+        }
+    }
+
+    /**
+     * Create the CSV files for the bahamut data. With bahamut.csv.parts above 1, the stop places and
+     * group of stop places are split into that many parts, whose CSV files are created concurrently.
+     */
+    public List<InputStream> createCSVFiles(BahamutData bahamutData) {
+        if (csvParts <= 1) {
+            return List.of(createCSVFile(createPeliasDocumentsStream(bahamutData)));
         }
+        return invokeAll(split(bahamutData, csvParts).stream()
+                .<Callable<InputStream>>map(part -> () -> createCSVFile(createPeliasDocumentsStream(part)))
+                .toList(), csvParts);
+    }
+
+    private static List<BahamutData> split(BahamutData bahamutData, int parts) {
+        List<BahamutData> split = new ArrayList<>(parts);
+        for (int part = 0; part < parts; part++) {
+            split.add(new BahamutData(
+                    part(bahamutData.stopPlaceHierarchies(), part, parts),
+                    part(bahamutData.groupOfStopPlaces(), part, parts),
+                    bahamutData.stopPlacesPopularityCache(),
+                    bahamutData.groupOfStopPlacesPopularityCache(),
+                    bahamutData.stringPool(),
+                    bahamutData.validity()));
+        }
+        return split;
+    }
+
+    private static <T> List<T> part(List<T> list, int part, int parts) {
+        int partSize = (list.size() + parts - 1) / parts;
+        return list.subList(Math.min(list.size(), part * partSize), Math.min(list.size(), (part + 1) * partSize));
     }
 
     public InputStream createCSVFile(Stream<PeliasDocument> peliasDocuments) {
         logger.info("Creating CSV file form PeliasDocuments stream");
-        return CSVCreator.create(peliasDocuments);
+        return exportMetrics.stage("csv", () -> exportMetrics.countBytesOut("csv",
+                CSVCreator.create(exportMetrics.countDocuments("csv", peliasDocuments))));
     }
 
     public String getOutputFilename() {
         return "bahamut_export_geocoder_" + System.currentTimeMillis();
     }
 
+    /**
+     * Zip the CSV files, as a single entry, or as one entry per file when the CSV files were created in parts.
+     */
     public InputStream zipCSVFile(List<InputStream> inputStreams, String filename) {
         logger.info("Zipping the created csv file");
-        return ZipUtilities.zipFiles(inputStreams, filename + ".csv");
+        if (inputStreams.size() == 1) {
+            return exportMetrics.stage("zip", () -> exportMetrics.countBytesOut("zip", ZipUtilities.zipFiles(
+                    List.of(exportMetrics.countBytesIn("zip", inputStreams.get(0))), filename + ".csv")));
+        }
+        return exportMetrics.stage("zip", () -> exportMetrics.countBytesOut("zip", zipCSVFileParts(inputStreams, filename)));
+    }
+
+    private InputStream zipCSVFileParts(List<InputStream> inputStreams, String filename) {
+        Path zipFile = Paths.get(bahamutWorkDir, filename + ".zip");
+        try {
+            Files.createDirectories(zipFile.getParent());
+            try (var zipOutputStream = new ZipOutputStream(new BufferedOutputStream(Files.newOutputStream(zipFile)))) {
+                for (int part = 0; part < inputStreams.size(); part++) {
+                    zipOutputStream.putNextEntry(new ZipEntry(filename + "_" + (part + 1) + ".csv"));
+                    try (InputStream inputStream = exportMetrics.countBytesIn("zip", inputStreams.get(part))) {
+                        inputStream.transferTo(zipOutputStream);
+                    }
+                    zipOutputStream.closeEntry();
+                }
+            }
+            // The zip file is only kept until the upload has read it.
+            return new BufferedInputStream(Files.newInputStream(zipFile, StandardOpenOption.DELETE_ON_CLOSE));
+        } catch (IOException e) {
+            deleteRecursively(zipFile);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static <T> List<T> invokeAll(List<Callable<T>> tasks, int parallelism) {
+        if (parallelism <= 1 || tasks.size() <= 1) {
+            return tasks.stream().map(BahamutService::call).toList();
+        }
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, tasks.size()));
+        try {
+            List<T> results = new ArrayList<>(tasks.size());
+            for (Future<T> future : executorService.invokeAll(tasks)) {
+                results.add(future.get());
+            }
+            return results;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException runtimeException) {
+                throw runtimeException;
+            }
+            throw new RuntimeException(e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    private static <T> T call(Callable<T> task) {
+        try {
+            return task.call();
+        } catch (RuntimeException e) {
+            throw e;
+        } catch (Exception e) {
+            throw new RuntimeException(e);
+        }
     }
 
     @Retryable(
@@ -134,7 +428,26 @@ public class BahamutService {
                     multiplierExpression = "${bahamut.retry.backoff.multiplier:3}"))
     public void uploadCSVFile(InputStream csvZipFile, String filename) {
         logger.info("Uploading the zipped CSV file top bahamut");
-        bahamutBlobStoreService.uploadBlob(filename + ".zip", csvZipFile);
+        exportMetrics.stage("upload", () -> uploadBlob(filename + ".zip", exportMetrics.countBytesIn("upload", csvZipFile)));
+    }
+
+    /**
+     * Create, zip and upload the CSV file in one go, uploading while the documents are still being mapped.
+     * Not retryable, as the documents stream can only be consumed once.
+     */
+    public void streamCSVFileToBahamut(Stream<PeliasDocument> peliasDocuments, String filename, ContentDigest csvDigest) {
+        logger.info("Streaming the zipped CSV file to bahamut while creating it");
+        exportMetrics.stage("csv", () -> streamingCSVZipWriter.write(
+                exportMetrics.countDocuments("csv", peliasDocuments), filename + ".csv", csvDigest,
+                csvZipFile -> uploadBlob(filename + ".zip", exportMetrics.countBytesIn("upload", csvZipFile))));
+    }
+
+    private void uploadBlob(String name, InputStream inputStream) {
+        if (uploadInParts) {
+            bahamutBlobStoreService.uploadBlobInParts(name, inputStream);
+        } else {
+            bahamutBlobStoreService.uploadBlob(name, inputStream);
+        }
     }
 
     @Retryable(
@@ -145,6 +458,71 @@ public class BahamutService {
                     multiplierExpression = "${bahamut.retry.backoff.multiplier:3}"))
     public void copyCSVFileAsLatestToConfiguredBucket(String filename) {
         logger.info("Coping latest file to haya");
-        bahamutBlobStoreService.copyBlobAsLatestToTargetBucket(filename + ".zip");
+        exportMetrics.stage("copy", () -> bahamutBlobStoreService.copyBlobAsLatestToTargetBucket(filename + ".zip"));
+    }
+
+    /**
+     * Whether the csv content is identical to the one of the latest file copied to haya,
+     * always false unless bahamut.upload.skip-unchanged is enabled.
+     * The digest must be complete, i.e. all csv content must have been read or written through it.
+     */
+    public boolean isUnchangedSinceLatestUpload(ContentDigest csvDigest) {
+        if (!skipUnchanged) {
+            return false;
+        }
+        String latestDigest = bahamutBlobStoreService.getLatestDigest();
+        logger.info("Csv digest " + csvDigest.hex() + ", latest " + latestDigest);
+        return csvDigest.hex().equals(latestDigest);
+    }
+
+    @Retryable(
+            value = Exception.class,
+            maxAttemptsExpression = "${bahamut.retry.maxAttempts:3}",
+            backoff = @Backoff(
+                    delayExpression = "${bahamut.retry.maxDelay:5000}",
+                    multiplierExpression = "${bahamut.retry.backoff.multiplier:3}"))
+    public void uploadLatestDigest(ContentDigest csvDigest) {
+        if (skipUnchanged) {
+            logger.info("Uploading the digest of the latest csv file to bahamut");
+            bahamutBlobStoreService.uploadLatestDigest(csvDigest.hex());
+        }
+    }
+
+    @Retryable(
+            value = Exception.class,
+            maxAttemptsExpression = "${bahamut.retry.maxAttempts:3}",
+            backoff = @Backoff(
+                    delayExpression = "${bahamut.retry.maxDelay:5000}",
+                    multiplierExpression = "${bahamut.retry.backoff.multiplier:3}"))
+    public void exportDelta(BahamutData bahamutData, String filename) {
+        if (deltaExport) {
+            logger.info("Creating and uploading the delta export to bahamut");
+            exportMetrics.stage("delta", () -> deltaExporter.export(bahamutData, filename));
+        }
+    }
+
+    /**
+     * Log the cost of the run per stage.
+     */
+    public RunReport logRunReport(String filename) {
+        RunReport runReport = exportMetrics.report(filename);
+        runReport.stages().forEach(stage -> logger.info("Export stage " + stage));
+        return runReport;
+    }
+
+    /**
+     * Log the cost of the run per stage, and upload it as a json report to bahamut when enabled.
+     */
+    public void uploadRunReport(String filename) {
+        RunReport runReport = logRunReport(filename);
+        if (runReportUpload) {
+            logger.info("Uploading the run report to bahamut");
+            try {
+                bahamutBlobStoreService.uploadBlob(runReportFolder + "/" + filename + ".json",
+                        new ByteArrayInputStream(new ObjectMapper().writeValueAsBytes(runReport)));
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        }
     }
 }
\ No newline at end of file
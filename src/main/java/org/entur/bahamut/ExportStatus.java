@@ -0,0 +1,27 @@
+package org.entur.bahamut;
+
+import java.time.Instant;
+
+/**
+ * Status of the latest export, as returned by the export endpoint in service mode.
+ */
+public record ExportStatus(State state, Instant started, Instant finished, String outputFilename, String error) {
+
+    public enum State {IDLE, RUNNING, SUCCEEDED, FAILED}
+
+    static ExportStatus idle() {
+        return new ExportStatus(State.IDLE, null, null, null, null);
+    }
+
+    static ExportStatus running(Instant started) {
+        return new ExportStatus(State.RUNNING, started, null, null, null);
+    }
+
+    ExportStatus succeeded(String outputFilename) {
+        return new ExportStatus(State.SUCCEEDED, started, Instant.now(), outputFilename, null);
+    }
+
+    ExportStatus failed(String error) {
+        return new ExportStatus(State.FAILED, started, Instant.now(), null, error);
+    }
+}
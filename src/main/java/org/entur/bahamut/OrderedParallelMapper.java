@@ -0,0 +1,48 @@
+package org.entur.bahamut;
+
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * Flat maps a list in chunks, where the elements of each chunk are mapped in parallel on a dedicated fork-join pool.
+ * The results are reassembled in source order, so the output is identical to mapping the list sequentially.
+ * Chunks are mapped lazily, one at a time, as the resulting stream is consumed.
+ * <p>
+ * With parallelism 1, the list is mapped sequentially on the calling thread.
+ */
+@Component
+public class OrderedParallelMapper {
+
+    private final int parallelism;
+    private final int chunkSize;
+    private final ForkJoinPool forkJoinPool;
+
+    public OrderedParallelMapper(@Value("${bahamut.mapping.parallelism:1}") int parallelism,
+                                 @Value("${bahamut.mapping.chunk.size:10000}") int chunkSize) {
+        this.parallelism = parallelism;
+        this.chunkSize = chunkSize;
+        this.forkJoinPool = parallelism > 1 ? new ForkJoinPool(parallelism) : null;
+    }
+
+    public <T, R> Stream<R> flatMap(List<T> source, Function<T, Stream<R>> mapper) {
+        if (parallelism <= 1) {
+            return source.stream().flatMap(mapper);
+        }
+
+        int chunks = (source.size() + chunkSize - 1) / chunkSize;
+        return IntStream.range(0, chunks)
+                .mapToObj(chunk -> source.subList(chunk * chunkSize, Math.min(source.size(), (chunk + 1) * chunkSize)))
+                .flatMap(chunk -> mapChunk(chunk, mapper).stream());
+    }
+
+    private <T, R> List<R> mapChunk(List<T> chunk, Function<T, Stream<R>> mapper) {
+        // toList on an ordered parallel stream keeps the encounter order of the chunk.
+        return forkJoinPool.submit(() -> chunk.parallelStream().flatMap(mapper).toList()).join();
+    }
+}
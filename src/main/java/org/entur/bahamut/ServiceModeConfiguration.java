@@ -0,0 +1,14 @@
+package org.entur.bahamut;
+
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.scheduling.annotation.EnableScheduling;
+
+/**
+ * Scheduled exports, by bahamut.service.schedule, are only run in service mode.
+ */
+@Configuration
+@EnableScheduling
+@ConditionalOnProperty(value = "bahamut.service.enabled", havingValue = "true")
+public class ServiceModeConfiguration {
+}
@@ -0,0 +1,166 @@
+package org.entur.bahamut;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+
+/**
+ * Runs the elements of a list through a chain of stages, e.g. download, then unzip and parse, where each stage
+ * has its own pool of platform threads and the stages are connected by bounded queues. A stage blocks when
+ * the queue to the next stage is full, so a fast stage can get at most queueCapacity elements ahead of a slow one.
+ * Different elements are in different stages at the same time, so the wall clock time gets close to that
+ * of the slowest stage rather than the sum of all stages.
+ * <p>
+ * The results are returned in source order. If a stage fails, the pipeline is stopped and the failure rethrown.
+ */
+public final class StagedPipeline<T> {
+
+    private static final Logger logger = LoggerFactory.getLogger(StagedPipeline.class);
+
+    private static final Item END = new Item(-1, null);
+
+    private final List<?> source;
+    private final int queueCapacity;
+    private final List<Stage> stages;
+
+    private StagedPipeline(List<?> source, int queueCapacity, List<Stage> stages) {
+        this.source = source;
+        this.queueCapacity = queueCapacity;
+        this.stages = stages;
+    }
+
+    public static <T> StagedPipeline<T> of(List<T> source, int queueCapacity) {
+        return new StagedPipeline<>(source, Math.max(1, queueCapacity), List.of());
+    }
+
+    /**
+     * Add a stage applying the function to each element with the given number of threads.
+     */
+    public <R> StagedPipeline<R> then(String name, int parallelism, Function<T, R> function) {
+        List<Stage> withStage = new ArrayList<>(stages);
+        @SuppressWarnings("unchecked")
+        Function<Object, Object> stageFunction = (Function<Object, Object>) function;
+        withStage.add(new Stage(name, Math.max(1, parallelism), stageFunction));
+        return new StagedPipeline<>(source, queueCapacity, withStage);
+    }
+
+    @SuppressWarnings("unchecked")
+    public List<T> run() {
+        if (stages.isEmpty()) {
+            return (List<T>) source;
+        }
+
+        List<BlockingQueue<Item>> queues = new ArrayList<>();
+        for (int i = 0; i <= stages.size(); i++) {
+            queues.add(new ArrayBlockingQueue<>(queueCapacity));
+        }
+        AtomicReference<RuntimeException> failure = new AtomicReference<>();
+        List<ExecutorService> executors = new CopyOnWriteArrayList<>();
+        try {
+            ExecutorService feeder = Executors.newSingleThreadExecutor(threadFactory("source"));
+            executors.add(feeder);
+            feeder.execute(() -> feed(queues.get(0), failure));
+
+            for (int i = 0; i < stages.size(); i++) {
+                Stage stage = stages.get(i);
+                ExecutorService executor = Executors.newFixedThreadPool(stage.parallelism(), threadFactory(stage.name()));
+                executors.add(executor);
+                AtomicInteger running = new AtomicInteger(stage.parallelism());
+                for (int worker = 0; worker < stage.parallelism(); worker++) {
+                    BlockingQueue<Item> in = queues.get(i);
+                    BlockingQueue<Item> out = queues.get(i + 1);
+                    executor.execute(() -> work(stage, in, out, running, failure, executors));
+                }
+            }
+
+            return (List<T>) collect(queues.get(stages.size()), failure);
+        } finally {
+            executors.forEach(ExecutorService::shutdownNow);
+        }
+    }
+
+    private void feed(BlockingQueue<Item> queue, AtomicReference<RuntimeException> failure) {
+        try {
+            for (int index = 0; index < source.size(); index++) {
+                queue.put(new Item(index, source.get(index)));
+            }
+            queue.put(END);
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, new RuntimeException("Pipeline source interrupted", e));
+        }
+    }
+
+    private static void work(Stage stage, BlockingQueue<Item> in, BlockingQueue<Item> out, AtomicInteger running,
+                             AtomicReference<RuntimeException> failure, List<ExecutorService> executors) {
+        try {
+            while (true) {
+                Item item = in.take();
+                if (item == END) {
+                    // Hand the end on to the other workers of the stage, the last one ends the next stage.
+                    in.put(END);
+                    if (running.decrementAndGet() == 0) {
+                        out.put(END);
+                    }
+                    return;
+                }
+                out.put(new Item(item.index(), stage.function().apply(item.value())));
+            }
+        } catch (InterruptedException e) {
+            failure.compareAndSet(null, new RuntimeException("Pipeline stage " + stage.name() + " interrupted", e));
+        } catch (Throwable e) {
+            failure.compareAndSet(null, e instanceof RuntimeException runtimeException
+                    ? runtimeException : new RuntimeException(e));
+            executors.forEach(ExecutorService::shutdownNow);
+            logger.warn("Pipeline stage " + stage.name() + " failed, stopping the pipeline");
+        }
+    }
+
+    private List<Object> collect(BlockingQueue<Item> queue, AtomicReference<RuntimeException> failure) {
+        Object[] results = new Object[source.size()];
+        try {
+            while (true) {
+                if (failure.get() != null) {
+                    throw failure.get();
+                }
+                Item item = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (item == END) {
+                    return Arrays.asList(results);
+                }
+                if (item != null) {
+                    results[item.index()] = item.value();
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static ThreadFactory threadFactory(String name) {
+        AtomicInteger threads = new AtomicInteger();
+        return runnable -> {
+            Thread thread = new Thread(runnable, "bahamut-" + name + "-" + threads.incrementAndGet());
+            thread.setDaemon(true);
+            return thread;
+        };
+    }
+
+    private record Stage(String name, int parallelism, Function<Object, Object> function) {
+    }
+
+    private record Item(int index, Object value) {
+    }
+}
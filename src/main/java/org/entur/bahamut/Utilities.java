@@ -1,9 +1,7 @@
 package org.entur.bahamut;
 
 import org.rutebanken.netex.model.MultilingualString;
-import org.rutebanken.netex.model.ValidBetween;
 
-import java.time.LocalDateTime;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
@@ -24,20 +22,4 @@ public class Utilities {
         Map<Object, Boolean> seen = new ConcurrentHashMap<>();
         return t -> seen.putIfAbsent(keyExtractor.apply(t), Boolean.TRUE) == null;
     }
-
-    /**
-     * Should compare instant with valid between from/to in timezone defined in PublicationDelivery,
-     * but makes little difference in practice
-     **/
-    public static boolean isValidNow(ValidBetween validBetween) {
-        var now = LocalDateTime.now();
-        if (validBetween != null) {
-            if (validBetween.getFromDate() != null && validBetween.getFromDate().isAfter(now)) {
-                return false;
-            }
-
-            return validBetween.getToDate() == null || !validBetween.getToDate().isBefore(now);
-        }
-        return true;
-    }
 }
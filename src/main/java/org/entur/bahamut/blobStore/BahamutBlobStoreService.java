@@ -2,13 +2,26 @@ package org.entur.bahamut.blobStore;
 
 import org.entur.geocoder.blobStore.BlobStoreRepository;
 import org.entur.geocoder.blobStore.BlobStoreService;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
+import org.springframework.retry.support.RetryTemplate;
 import org.springframework.stereotype.Service;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.*;
+
 @Service
 public class BahamutBlobStoreService extends BlobStoreService {
 
+    private static final Logger logger = LoggerFactory.getLogger(BahamutBlobStoreService.class);
+
     @Value("${blobstore.gcs.haya.bucket.name:haya-dev}")
     private String targetBucketName;
 
@@ -18,13 +31,107 @@ public class BahamutBlobStoreService extends BlobStoreService {
     @Value("${blobstore.gcs.haya.import.folder:import}")
     private String targetFolder;
 
+    @Value("${blobstore.gcs.bahamut.latest.digest.file:bahamut_latest.sha256}")
+    private String latestDigestFile;
+
+    private final String bucketName;
+    private final BlobComposer blobComposer;
+    private final int partSize;
+    private final int partUploadParallelism;
+    private final RetryTemplate partRetryTemplate;
+
     public BahamutBlobStoreService(
             @Value("${blobstore.gcs.bahamut.bucket.name:bahamut-dev}") String bucketName,
-            @Autowired BlobStoreRepository repository) {
+            @Autowired BlobStoreRepository repository,
+            BlobComposer blobComposer,
+            @Value("${blobstore.upload.part.size:33554432}") int partSize,
+            @Value("${blobstore.upload.parallelism:4}") int partUploadParallelism,
+            RetryTemplate blobTransferRetryTemplate) {
         super(bucketName, repository);
+        this.bucketName = bucketName;
+        this.blobComposer = blobComposer;
+        this.partSize = partSize;
+        this.partUploadParallelism = partUploadParallelism;
+        this.partRetryTemplate = blobTransferRetryTemplate;
+    }
+
+    /**
+     * Upload the stream in parts of blobstore.upload.part.size bytes, with up to blobstore.upload.parallelism
+     * parts uploading at a time, and compose the parts into the blob when all are uploaded.
+     * Each part is kept in memory while uploading, so a failed part upload is retried on its own.
+     */
+    public void uploadBlobInParts(String name, InputStream inputStream) {
+        List<String> partNames = new ArrayList<>();
+        List<Future<?>> partUploads = new ArrayList<>();
+        Semaphore partsInFlight = new Semaphore(partUploadParallelism);
+        ExecutorService executorService = Executors.newFixedThreadPool(partUploadParallelism);
+        try {
+            boolean lastPart;
+            byte[] part = inputStream.readNBytes(partSize);
+            do {
+                // Reading one part ahead, so a size that is a multiple of the part size ends without an empty part.
+                byte[] nextPart = part.length < partSize ? new byte[0] : inputStream.readNBytes(partSize);
+                lastPart = nextPart.length == 0;
+                byte[] partContent = part;
+                String partName = String.format("%s.parts/%05d", name, partNames.size());
+                partNames.add(partName);
+
+                partsInFlight.acquire();
+                partUploads.add(executorService.submit(() -> {
+                    try {
+                        uploadPart(partName, partContent);
+                    } finally {
+                        partsInFlight.release();
+                    }
+                }));
+                part = nextPart;
+            } while (!lastPart);
+
+            for (Future<?> partUpload : partUploads) {
+                partUpload.get();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException("Uploading " + name + " in parts failed", e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+
+        logger.info("Uploaded " + name + " in " + partNames.size() + " parts, composing them");
+        blobComposer.compose(this, bucketName, partNames, name);
+    }
+
+    private void uploadPart(String partName, byte[] part) {
+        partRetryTemplate.execute(context -> {
+            if (context.getRetryCount() > 0) {
+                logger.warn("Retrying upload of " + partName + " after: " + context.getLastThrowable().getMessage());
+            }
+            uploadBlob(partName, new ByteArrayInputStream(part));
+            return null;
+        });
     }
 
     public void copyBlobAsLatestToTargetBucket(String sourceName) {
         super.copyBlob(sourceName, targetBucketName, targetFolder + "/" + targetFilename + ".zip");
     }
+
+    /**
+     * @return the digest of the csv content of the latest file copied to the target bucket, or null if unknown.
+     */
+    public String getLatestDigest() {
+        try (InputStream inputStream = getBlob(latestDigestFile)) {
+            return inputStream != null ? new String(inputStream.readAllBytes(), StandardCharsets.UTF_8).trim() : null;
+        } catch (IOException | RuntimeException e) {
+            logger.warn("Unable to read the digest of the latest file: " + e.getMessage());
+            return null;
+        }
+    }
+
+    public void uploadLatestDigest(String digest) {
+        uploadBlob(latestDigestFile, new ByteArrayInputStream(digest.getBytes(StandardCharsets.UTF_8)));
+    }
 }
\ No newline at end of file
@@ -0,0 +1,13 @@
+package org.entur.bahamut.blobStore;
+
+import org.entur.geocoder.blobStore.BlobStoreService;
+
+import java.util.List;
+
+/**
+ * Composes blobs uploaded in parts into a single blob, in the order of the parts.
+ */
+public interface BlobComposer {
+
+    void compose(BlobStoreService blobStoreService, String bucketName, List<String> partNames, String name);
+}
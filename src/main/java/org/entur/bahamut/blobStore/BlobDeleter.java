@@ -0,0 +1,9 @@
+package org.entur.bahamut.blobStore;
+
+/**
+ * Deletes blobs from the blob stores without server side composition, as BlobStoreService has no delete.
+ */
+public interface BlobDeleter {
+
+    void delete(String bucketName, String name);
+}
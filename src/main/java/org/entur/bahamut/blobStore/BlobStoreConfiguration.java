@@ -9,10 +9,17 @@ import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 import org.springframework.context.annotation.Profile;
 import org.springframework.context.annotation.Scope;
+import org.springframework.retry.backoff.ExponentialBackOffPolicy;
+import org.springframework.retry.support.RetryTemplate;
 
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.stream.Stream;
 
 @Configuration
 public class BlobStoreConfiguration {
@@ -32,6 +39,27 @@ public class BlobStoreConfiguration {
         return new LocalDiskBlobStoreRepository(baseFolder);
     }
 
+    /**
+     * Deletes the file of the blob, and its directory when left empty, e.g. the directory of the parts of a blob.
+     */
+    @Bean
+    @Profile("local-disk-blobstore")
+    public BlobDeleter localDiskBlobDeleter(@Value("${blobstore.local.folder:files/blob}") String baseFolder) {
+        return (bucketName, name) -> {
+            Path blob = Paths.get(baseFolder, bucketName, name);
+            try {
+                Files.deleteIfExists(blob);
+                try (Stream<Path> siblings = Files.list(blob.getParent())) {
+                    if (siblings.findAny().isEmpty()) {
+                        Files.delete(blob.getParent());
+                    }
+                }
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+        };
+    }
+
     @Bean
     @Scope("prototype")
     @Profile("in-memory-blobstore")
@@ -40,6 +68,32 @@ public class BlobStoreConfiguration {
         return new InMemoryBlobStoreRepository(blobsInContainers);
     }
 
+    /**
+     * Retries single parts or ranges of blob transfers, with the same settings as the @Retryable bahamut steps.
+     */
+    @Bean
+    public RetryTemplate blobTransferRetryTemplate(
+            @Value("${bahamut.retry.maxAttempts:3}") int maxAttempts,
+            @Value("${bahamut.retry.maxDelay:5000}") long delay,
+            @Value("${bahamut.retry.backoff.multiplier:3}") double multiplier) {
+        return RetryTemplate.builder()
+                .maxAttempts(maxAttempts)
+                .exponentialBackoff(delay, multiplier, ExponentialBackOffPolicy.DEFAULT_MAX_INTERVAL)
+                .retryOn(Exception.class)
+                .build();
+    }
+
+    @Bean
+    @Profile("in-memory-blobstore")
+    public BlobDeleter inMemoryBlobDeleter(Map<String, Map<String, byte[]>> blobsInContainers) {
+        return (bucketName, name) -> {
+            Map<String, byte[]> blobs = blobsInContainers.get(bucketName);
+            if (blobs != null) {
+                blobs.remove(name);
+            }
+        };
+    }
+
     @Bean
     @Profile("in-memory-blobstore")
     public Map<String, Map<String, byte[]>> blobsInContainers() {
@@ -0,0 +1,44 @@
+package org.entur.bahamut.blobStore;
+
+import org.entur.geocoder.blobStore.BlobStoreService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.io.InputStream;
+import java.io.SequenceInputStream;
+import java.util.Enumeration;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Composes the parts by streaming them one after the other into the target blob, for blob stores
+ * without server side composition, like the local disk and in memory ones, and deletes them afterwards.
+ */
+@Component
+@Profile("!gcs-blobstore")
+public class ConcatenatingBlobComposer implements BlobComposer {
+
+    private final BlobDeleter blobDeleter;
+
+    public ConcatenatingBlobComposer(BlobDeleter blobDeleter) {
+        this.blobDeleter = blobDeleter;
+    }
+
+    @Override
+    public void compose(BlobStoreService blobStoreService, String bucketName, List<String> partNames, String name) {
+        Iterator<String> parts = partNames.iterator();
+        blobStoreService.uploadBlob(name, new SequenceInputStream(new Enumeration<InputStream>() {
+            @Override
+            public boolean hasMoreElements() {
+                return parts.hasNext();
+            }
+
+            @Override
+            public InputStream nextElement() {
+                return blobStoreService.getBlob(parts.next());
+            }
+        }));
+
+        partNames.forEach(partName -> blobDeleter.delete(bucketName, partName));
+    }
+}
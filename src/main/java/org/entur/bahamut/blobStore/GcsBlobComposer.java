@@ -0,0 +1,57 @@
+package org.entur.bahamut.blobStore;
+
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.BlobInfo;
+import com.google.cloud.storage.Storage;
+import org.entur.geocoder.blobStore.BlobStoreService;
+import org.springframework.context.annotation.Profile;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.Stream;
+
+/**
+ * Composes the parts server side, without downloading them, and deletes them afterwards.
+ * GCS composes at most 32 blobs at a time, so more parts are composed in rounds through intermediate blobs.
+ */
+@Component
+@Profile("gcs-blobstore")
+public class GcsBlobComposer implements BlobComposer {
+
+    private static final int MAX_COMPOSE_SOURCES = 32;
+
+    private final Storage storage;
+
+    public GcsBlobComposer(Storage storage) {
+        this.storage = storage;
+    }
+
+    @Override
+    public void compose(BlobStoreService blobStoreService, String bucketName, List<String> partNames, String name) {
+        List<String> sources = partNames;
+        List<String> intermediates = new ArrayList<>();
+        for (int round = 0; sources.size() > MAX_COMPOSE_SOURCES; round++) {
+            List<String> composed = new ArrayList<>();
+            for (int i = 0; i < sources.size(); i += MAX_COMPOSE_SOURCES) {
+                String intermediate = name + ".parts/composed-" + round + "-" + composed.size();
+                compose(bucketName, sources.subList(i, Math.min(sources.size(), i + MAX_COMPOSE_SOURCES)), intermediate);
+                composed.add(intermediate);
+            }
+            intermediates.addAll(composed);
+            sources = composed;
+        }
+        compose(bucketName, sources, name);
+
+        storage.delete(Stream.concat(partNames.stream(), intermediates.stream())
+                .map(blobName -> BlobId.of(bucketName, blobName))
+                .toList());
+    }
+
+    private void compose(String bucketName, List<String> sources, String target) {
+        storage.compose(Storage.ComposeRequest.newBuilder()
+                .addSource(sources)
+                .setTarget(BlobInfo.newBuilder(bucketName, target).build())
+                .build());
+    }
+}
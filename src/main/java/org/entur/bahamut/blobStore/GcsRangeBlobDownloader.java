@@ -0,0 +1,179 @@
+package org.entur.bahamut.blobStore;
+
+import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.Blob;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.context.annotation.Profile;
+import org.springframework.retry.support.RetryTemplate;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.io.RandomAccessFile;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Base64;
+import java.util.List;
+import java.util.concurrent.*;
+import java.util.zip.CRC32C;
+import java.util.zip.CheckedInputStream;
+
+/**
+ * Downloads a blob as byte ranges read in parallel into a file preallocated to the blob size.
+ * All ranges read the same generation of the blob, and a failed range is retried on its own.
+ * The file is verified against the size and CRC32C checksum of the blob before it is handed out,
+ * and is deleted when the returned stream is closed.
+ */
+@Component
+@Profile("gcs-blobstore")
+@ConditionalOnProperty(name = "blobstore.download.parallel.enabled", havingValue = "true")
+public class GcsRangeBlobDownloader {
+
+    private static final Logger logger = LoggerFactory.getLogger(GcsRangeBlobDownloader.class);
+
+    private static final int BUFFER_SIZE = 1024 * 1024;
+
+    private final Storage storage;
+    private final RetryTemplate blobTransferRetryTemplate;
+    private final String downloadDir;
+    private final int rangeSize;
+    private final int parallelism;
+
+    public GcsRangeBlobDownloader(Storage storage,
+                                  RetryTemplate blobTransferRetryTemplate,
+                                  @Value("${bahamut.workdir:/tmp/bahamut/geocoder}") String workDir,
+                                  @Value("${blobstore.download.range.size:33554432}") int rangeSize,
+                                  @Value("${blobstore.download.parallelism:4}") int parallelism) {
+        this.storage = storage;
+        this.blobTransferRetryTemplate = blobTransferRetryTemplate;
+        this.downloadDir = workDir + "-downloads";
+        this.rangeSize = rangeSize;
+        this.parallelism = parallelism;
+    }
+
+    public InputStream download(String bucketName, String name) {
+        Blob blob = storage.get(BlobId.of(bucketName, name));
+        if (blob == null) {
+            throw new RuntimeException("Blob " + name + " not found in " + bucketName);
+        }
+        return download(BlobId.of(bucketName, name, blob.getGeneration()), name, blob.getSize(), blob.getCrc32c());
+    }
+
+    /**
+     * Download the generation of the blob given by the blob id, which has the given size and CRC32C checksum.
+     */
+    InputStream download(BlobId blobId, String name, long size, String crc32c) {
+        Path file = createDownloadFile(name);
+
+        int ranges = (int) Math.max(1, (size + rangeSize - 1) / rangeSize);
+        logger.info("Downloading " + name + " (" + size + " bytes) in " + ranges + " ranges");
+        ExecutorService executorService = Executors.newFixedThreadPool(Math.min(parallelism, ranges));
+        try {
+            try (RandomAccessFile randomAccessFile = new RandomAccessFile(file.toFile(), "rw")) {
+                randomAccessFile.setLength(size);
+                FileChannel fileChannel = randomAccessFile.getChannel();
+
+                List<Future<?>> rangeDownloads = new ArrayList<>(ranges);
+                for (long start = 0; start < size; start += rangeSize) {
+                    long rangeStart = start;
+                    long rangeEnd = Math.min(size, start + rangeSize);
+                    rangeDownloads.add(executorService.submit(() -> blobTransferRetryTemplate.execute(context -> {
+                        if (context.getRetryCount() > 0) {
+                            logger.warn("Retrying range " + rangeStart + "-" + rangeEnd + " of " + name
+                                    + " after: " + context.getLastThrowable().getMessage());
+                        }
+                        downloadRange(blobId, fileChannel, rangeStart, rangeEnd);
+                        return null;
+                    })));
+                }
+                for (Future<?> rangeDownload : rangeDownloads) {
+                    rangeDownload.get();
+                }
+            }
+            verify(file, size, crc32c);
+            return new BufferedInputStream(Files.newInputStream(file, StandardOpenOption.READ, StandardOpenOption.DELETE_ON_CLOSE));
+        } catch (IOException e) {
+            deleteQuietly(file);
+            throw new RuntimeException(e);
+        } catch (InterruptedException e) {
+            deleteQuietly(file);
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            deleteQuietly(file);
+            throw new RuntimeException("Downloading " + name + " in ranges failed", e.getCause());
+        } finally {
+            executorService.shutdownNow();
+        }
+    }
+
+    /**
+     * A file of its own for every download, as the same blob may be downloaded by several runs at once.
+     */
+    private Path createDownloadFile(String name) {
+        try {
+            Path directory = Files.createDirectories(Paths.get(downloadDir));
+            return Files.createTempFile(directory, null, "-" + Paths.get(name).getFileName());
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void downloadRange(BlobId blobId, FileChannel fileChannel, long start, long end) throws IOException {
+        try (ReadChannel reader = storage.reader(blobId)) {
+            reader.seek(start);
+            reader.limit(end);
+            ByteBuffer buffer = ByteBuffer.allocate(BUFFER_SIZE);
+            long position = start;
+            while (position < end) {
+                buffer.clear();
+                int read = reader.read(buffer);
+                if (read < 0) {
+                    throw new IOException("Range " + start + "-" + end + " ended at " + position);
+                }
+                buffer.flip();
+                while (buffer.hasRemaining()) {
+                    position += fileChannel.write(buffer, position);
+                }
+            }
+        }
+    }
+
+    private static void verify(Path file, long size, String crc32c) throws IOException {
+        if (Files.size(file) != size) {
+            throw new IOException("Downloaded " + Files.size(file) + " bytes of " + file + ", expected " + size);
+        }
+        if (crc32c == null) {
+            throw new IOException("No CRC32C checksum to verify " + file + " against");
+        }
+        try (var inputStream = new CheckedInputStream(Files.newInputStream(file), new CRC32C())) {
+            inputStream.transferTo(OutputStream.nullOutputStream());
+            // GCS encodes the checksum as base64 of its four bytes in big-endian order.
+            String downloadedCrc32c = Base64.getEncoder().encodeToString(
+                    ByteBuffer.allocate(Integer.BYTES).putInt((int) inputStream.getChecksum().getValue()).array());
+            if (!downloadedCrc32c.equals(crc32c)) {
+                throw new IOException("CRC32C of " + file + " is " + downloadedCrc32c + ", expected " + crc32c);
+            }
+        }
+    }
+
+    private static void deleteQuietly(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (IOException e) {
+            logger.warn("Could not delete " + file + ": " + e.getMessage());
+        }
+    }
+}
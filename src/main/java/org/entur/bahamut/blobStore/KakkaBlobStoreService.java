@@ -6,12 +6,31 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Service;
 
+import java.io.InputStream;
+import java.util.Optional;
+
 @Service
 public class KakkaBlobStoreService extends BlobStoreService {
 
+    private final String bucketName;
+    private final Optional<GcsRangeBlobDownloader> rangeBlobDownloader;
+
     public KakkaBlobStoreService(
             @Value("${blobstore.gcs.kakka.bucket.name:kakka-dev}") String bucketName,
-            @Autowired BlobStoreRepository repository) {
+            @Autowired BlobStoreRepository repository,
+            Optional<GcsRangeBlobDownloader> rangeBlobDownloader) {
         super(bucketName, repository);
+        this.bucketName = bucketName;
+        this.rangeBlobDownloader = rangeBlobDownloader;
+    }
+
+    /**
+     * Download the blob in parallel ranges when blobstore.download.parallel.enabled is set on GCS,
+     * otherwise as a single stream.
+     */
+    public InputStream downloadBlob(String name) {
+        return rangeBlobDownloader
+                .map(downloader -> downloader.download(bucketName, name))
+                .orElseGet(() -> getBlob(name));
     }
 }
\ No newline at end of file
@@ -0,0 +1,156 @@
+package org.entur.bahamut.csv;
+
+import org.entur.bahamut.io.BlockingPipe;
+import org.entur.bahamut.io.ContentDigest;
+import org.entur.geocoder.csv.CSVCreator;
+import org.entur.geocoder.model.PeliasDocument;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Push based alternative to creating the complete csv file and zipping it afterwards.
+ * <p>
+ * Pelias documents are encoded with CSVCreator in chunks and written into a zip entry on a separate thread,
+ * while the zip is handed to the consumer through a bounded pipe as it is being written.
+ * Only one chunk of csv and a few pipe blocks are held in memory at a time, and the consumer,
+ * typically the upload, starts while documents are still being mapped.
+ * <p>
+ * The csv header, being the first line of the first chunk, is dropped from the following chunks,
+ * so the zip entry is identical to the one created from a single CSVCreator call.
+ * The write fails if a following chunk starts with a different header.
+ */
+@Component
+public class StreamingCSVZipWriter {
+
+    private static final int PIPE_BLOCK_SIZE = 64 * 1024;
+    private static final int PIPE_CAPACITY = 16;
+
+    private final int chunkSize;
+    private final Function<Stream<PeliasDocument>, InputStream> csvCreator;
+
+    public StreamingCSVZipWriter(@Value("${bahamut.csv.chunk.size:10000}") int chunkSize) {
+        this(chunkSize, CSVCreator::create);
+    }
+
+    StreamingCSVZipWriter(int chunkSize, Function<Stream<PeliasDocument>, InputStream> csvCreator) {
+        this.chunkSize = chunkSize;
+        this.csvCreator = csvCreator;
+    }
+
+    public void write(Stream<PeliasDocument> peliasDocuments, String csvFilename, Consumer<InputStream> zipConsumer) {
+        write(peliasDocuments, csvFilename, null, zipConsumer);
+    }
+
+    /**
+     * As write, also passing the csv content through the given digest.
+     */
+    public void write(Stream<PeliasDocument> peliasDocuments, String csvFilename, ContentDigest csvDigest,
+                      Consumer<InputStream> zipConsumer) {
+        var pipe = new BlockingPipe(PIPE_BLOCK_SIZE, PIPE_CAPACITY);
+        ExecutorService executor = Executors.newSingleThreadExecutor(runnable -> new Thread(runnable, "bahamut-csv-writer"));
+        try {
+            Future<?> writer = executor.submit(() -> writeZip(peliasDocuments, csvFilename, csvDigest, pipe));
+            try (InputStream zipInputStream = pipe.inputStream()) {
+                zipConsumer.accept(zipInputStream);
+            }
+            writer.get();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } finally {
+            executor.shutdownNow();
+        }
+    }
+
+    private void writeZip(Stream<PeliasDocument> peliasDocuments, String csvFilename, ContentDigest csvDigest,
+                          BlockingPipe pipe) {
+        try {
+            var zipOutputStream = new ZipOutputStream(pipe.outputStream());
+            zipOutputStream.putNextEntry(new ZipEntry(csvFilename));
+            writeCSV(peliasDocuments, csvDigest != null ? csvDigest.digest(zipOutputStream) : zipOutputStream);
+            zipOutputStream.closeEntry();
+            zipOutputStream.close();
+        } catch (IOException | RuntimeException e) {
+            // Not closing the zip on failure, the pipe must end with the failure rather than a complete zip.
+            pipe.fail(e);
+            throw new RuntimeException(e);
+        }
+    }
+
+    private void writeCSV(Stream<PeliasDocument> peliasDocuments, OutputStream outputStream) throws IOException {
+        byte[] header = null;
+        int chunks = 0;
+        Iterator<PeliasDocument> iterator = peliasDocuments.iterator();
+        do {
+            List<PeliasDocument> chunk = nextChunk(iterator);
+            if (header != null && chunk.isEmpty()) {
+                break;
+            }
+
+            byte[] csv;
+            try (InputStream csvInputStream = csvCreator.apply(chunk.stream())) {
+                csv = csvInputStream.readAllBytes();
+            }
+
+            int offset = 0;
+            if (header == null) {
+                header = firstLine(csv);
+            } else {
+                checkHeader(header, csv, chunks);
+                offset = header.length;
+            }
+            outputStream.write(csv, offset, csv.length - offset);
+            chunks++;
+        } while (iterator.hasNext());
+    }
+
+    private List<PeliasDocument> nextChunk(Iterator<PeliasDocument> iterator) {
+        List<PeliasDocument> chunk = new ArrayList<>(chunkSize);
+        while (chunk.size() < chunkSize && iterator.hasNext()) {
+            chunk.add(iterator.next());
+        }
+        return chunk;
+    }
+
+    private static byte[] firstLine(byte[] csv) {
+        for (int i = 0; i < csv.length; i++) {
+            if (csv[i] == '\n') {
+                return Arrays.copyOf(csv, i + 1);
+            }
+        }
+        return Arrays.copyOf(csv, csv.length);
+    }
+
+    /**
+     * Fails rather than writing a header line into the middle of the csv, if CSVCreator ever creates
+     * different headers for different chunks, e.g. with columns depending on the documents.
+     */
+    private static void checkHeader(byte[] header, byte[] csv, int chunk) {
+        if (!Arrays.equals(header, firstLine(csv))) {
+            throw new IllegalStateException("The csv header of chunk " + chunk + " differs from the header of the first chunk: "
+                    + new String(firstLine(csv), StandardCharsets.UTF_8).strip());
+        }
+    }
+}
@@ -1,13 +1,22 @@
 package org.entur.bahamut.data;
 
+import org.entur.bahamut.groupOfStopPlaces.GroupOfStopPlacesPopularityCache;
 import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchy;
 import org.entur.bahamut.stopPlaces.stopPlacePopularityCache.StopPlacesPopularityCache;
 import org.rutebanken.netex.model.GroupOfStopPlaces;
 
 import java.util.List;
 
+/**
+ * @param stringPool the strings of the stop places and group of stop places, pooled for the run,
+ *                   to be used for the strings derived from them when building the documents.
+ * @param validity     the validity of the stop places and group of stop places, evaluated for the run.
+ */
 public record BahamutData(
         List<StopPlaceHierarchy> stopPlaceHierarchies,
         List<GroupOfStopPlaces> groupOfStopPlaces,
-        StopPlacesPopularityCache stopPlacesPopularityCache) {
+        StopPlacesPopularityCache stopPlacesPopularityCache,
+        GroupOfStopPlacesPopularityCache groupOfStopPlacesPopularityCache,
+        StringPool stringPool,
+        ValidityIndex validity) {
 }
@@ -1,17 +1,26 @@
 package org.entur.bahamut.data;
 
+import org.entur.bahamut.groupOfStopPlaces.GroupOfStopPlacesPopularityCache;
+import org.entur.bahamut.groupOfStopPlaces.GroupOfStopPlacesPopularityCacheBuilder;
+import org.entur.bahamut.netex.NetexStopPlaces;
 import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchies;
 import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchy;
+import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchyIndex;
 import org.entur.bahamut.stopPlaces.stopPlacePopularityCache.StopPlacesPopularityCache;
 import org.entur.bahamut.stopPlaces.stopPlacePopularityCache.StopPlacesPopularityCacheBuilder;
 import org.entur.netex.index.api.NetexEntitiesIndex;
 import org.rutebanken.netex.model.GroupOfStopPlaces;
+import org.rutebanken.netex.model.StopPlace;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Collection;
+import java.time.Instant;
+import java.time.ZoneId;
+import java.util.ArrayList;
 import java.util.List;
+import java.util.function.Function;
 
 @Component
 public class BahamutDataBuilder {
@@ -19,30 +28,151 @@ public class BahamutDataBuilder {
     private static final Logger logger = LoggerFactory.getLogger(BahamutData.class);
 
     private final StopPlacesPopularityCacheBuilder stopPlacesPopularityCacheBuilder;
+    private final GroupOfStopPlacesPopularityCacheBuilder groupOfStopPlacesPopularityCacheBuilder;
+    private final Instant validityAsOf;
+    private final ZoneId validityTimeZone;
 
-    public BahamutDataBuilder(StopPlacesPopularityCacheBuilder stopPlacesPopularityCacheBuilder) {
+    /**
+     * @param validityAsOf     the instant the validity of stop places and group of stop places is evaluated at,
+     *                         e.g. to generate tomorrow's export in advance, or to benchmark reproducibly.
+     *                         Evaluated at the time of each build when empty.
+     * @param validityTimeZone the time zone of the local date times in ValidBetween, the system time zone when empty.
+     */
+    public BahamutDataBuilder(StopPlacesPopularityCacheBuilder stopPlacesPopularityCacheBuilder,
+                              GroupOfStopPlacesPopularityCacheBuilder groupOfStopPlacesPopularityCacheBuilder,
+                              @Value("${bahamut.validity.as-of:}") String validityAsOf,
+                              @Value("${bahamut.validity.time-zone:}") String validityTimeZone) {
         this.stopPlacesPopularityCacheBuilder = stopPlacesPopularityCacheBuilder;
+        this.groupOfStopPlacesPopularityCacheBuilder = groupOfStopPlacesPopularityCacheBuilder;
+        this.validityAsOf = validityAsOf.isBlank() ? null : Instant.parse(validityAsOf);
+        this.validityTimeZone = validityTimeZone.isBlank() ? ZoneId.systemDefault() : ZoneId.of(validityTimeZone);
     }
 
+    /**
+     * Build from the parsed Netex file. The stop places of all SiteFrames are resolved into hierarchies together,
+     * so children are kept when their parent is in another SiteFrame.
+     */
     public BahamutData build(NetexEntitiesIndex netexEntitiesIndex) {
+        logger.info("Getting stop places and group of stop places");
+        NetexStopPlaces netexStopPlaces = NetexStopPlaces.of(netexEntitiesIndex);
+        return build(netexStopPlaces.stopPlaces(), netexStopPlaces.groupOfStopPlaces());
+    }
+
+    /**
+     * Build from several Netex files, e.g. one per county, merged by id before the hierarchies are resolved.
+     * The first occurrence of an id is kept.
+     */
+    public BahamutData build(List<NetexStopPlaces> netexFiles) {
+        return build(netexFiles, new StringPool());
+    }
+
+    /**
+     * Build from several Netex files, with the strings of the stop places and group of stop places pooled
+     * in the given string pool, which is kept in the bahamut data for building the documents.
+     */
+    public BahamutData build(List<NetexStopPlaces> netexFiles, StringPool stringPool) {
+        if (netexFiles.size() == 1) {
+            return build(netexFiles.get(0).stopPlaces(), netexFiles.get(0).groupOfStopPlaces(), stringPool);
+        }
+
+        logger.info("Merging stop places and group of stop places from " + netexFiles.size() + " Netex files");
+        List<StopPlace> stopPlaces = mergeById(
+                netexFiles.stream().map(NetexStopPlaces::stopPlaces).toList(), StopPlace::getId, "stop places");
+        List<GroupOfStopPlaces> groupOfStopPlaces = mergeById(
+                netexFiles.stream().map(NetexStopPlaces::groupOfStopPlaces).toList(), GroupOfStopPlaces::getId, "group of stop places");
+
+        return build(stopPlaces, groupOfStopPlaces, stringPool);
+    }
+
+    /**
+     * Build from stop places and group of stop places streamed out of the Netex file.
+     * All stop places are resolved into hierarchies together, regardless of the SiteFrame they came from.
+     */
+    public BahamutData build(List<StopPlace> stopPlaces, List<GroupOfStopPlaces> groupOfStopPlaces) {
+        return build(stopPlaces, groupOfStopPlaces, new StringPool());
+    }
+
+    public BahamutData build(List<StopPlace> stopPlaces, List<GroupOfStopPlaces> groupOfStopPlaces, StringPool stringPool) {
+
+        logger.info("Pooling the strings of the stop places and group of stop places");
+        NetexStringInterner netexStringInterner = new NetexStringInterner(stringPool);
+        netexStringInterner.internStopPlaces(stopPlaces);
+        netexStringInterner.internGroupOfStopPlaces(groupOfStopPlaces);
+        logger.info("String pool: " + stringPool);
+
+        ValidityIndex validity = evaluateValidity(stopPlaces, groupOfStopPlaces);
 
         logger.info("Creating the stop place hierarchies");
-        List<StopPlaceHierarchy> stopPlaceHierarchies = netexEntitiesIndex.getSiteFrames().stream()
-                .map(siteFrame -> siteFrame.getStopPlaces().getStopPlace())
-                .map(StopPlaceHierarchies::create)
-                .flatMap(Collection::stream)
-                .toList();
+        StopPlaceHierarchyIndex stopPlaceHierarchies = StopPlaceHierarchies.create(stopPlaces);
+        if (stopPlaceHierarchies.duplicates() > 0) {
+            logger.warn("Skipped " + stopPlaceHierarchies.duplicates() + " stop places with an id already read, "
+                    + "using the first occurrence");
+        }
+        if (stopPlaceHierarchies.orphans() > 0) {
+            logger.warn("Left out " + stopPlaceHierarchies.orphans() + " stop places not connected to a root stop place, "
+                    + stopPlaceHierarchies.unresolvedParentRefs() + " of them with an unresolved ParentSiteRef");
+        }
 
-        logger.info("Getting group of stop places");
-        List<GroupOfStopPlaces> groupOfStopPlaces = netexEntitiesIndex.getSiteFrames().stream()
-                .map(siteFrame -> siteFrame.getGroupsOfStopPlaces().getGroupOfStopPlaces())
-                .flatMap(Collection::stream)
+        return withPopularity(stopPlaceHierarchies, groupOfStopPlaces, stringPool, validity);
+    }
+
+    /**
+     * The bahamut data with the validity of its stop places and group of stop places evaluated again,
+     * as it changes with time, e.g. when the bahamut data of an earlier export is exported again.
+     * Stop places left out of the hierarchies are not mapped, so their validity is not needed.
+     */
+    public BahamutData withValidity(BahamutData bahamutData) {
+        List<StopPlace> stopPlaces = bahamutData.stopPlaceHierarchies().stream()
+                .map(StopPlaceHierarchy::place)
                 .toList();
+        return new BahamutData(bahamutData.stopPlaceHierarchies(), bahamutData.groupOfStopPlaces(),
+                bahamutData.stopPlacesPopularityCache(), bahamutData.groupOfStopPlacesPopularityCache(),
+                bahamutData.stringPool(), evaluateValidity(stopPlaces, bahamutData.groupOfStopPlaces()));
+    }
 
+    private ValidityIndex evaluateValidity(List<StopPlace> stopPlaces, List<GroupOfStopPlaces> groupOfStopPlaces) {
+        ValidityEvaluator validityEvaluator = ValidityEvaluator.at(
+                validityAsOf != null ? validityAsOf : Instant.now(), validityTimeZone);
+        logger.info("Evaluating the validity of stop places and group of stop places as of "
+                + validityEvaluator.referenceTime() + " " + validityTimeZone);
+        ValidityIndex validity = ValidityIndex.of(stopPlaces, groupOfStopPlaces, validityEvaluator);
+        logger.info(validity.invalid() + " stop places and group of stop places are not valid");
+        return validity;
+    }
+
+    private static <T> List<T> mergeById(List<List<T>> lists, Function<T, String> id, String type) {
+        int size = lists.stream().mapToInt(List::size).sum();
+        IdIndex idIndex = new IdIndex(size);
+        List<T> merged = new ArrayList<>(size);
+        for (List<T> list : lists) {
+            for (T element : list) {
+                if (idIndex.add(id.apply(element)) != IdIndex.NOT_FOUND) {
+                    merged.add(element);
+                }
+            }
+        }
+        int duplicates = size - merged.size();
+        if (duplicates > 0) {
+            logger.warn("Skipped " + duplicates + " " + type + " with an id already read from another Netex file");
+        }
+        return merged;
+    }
+
+    private BahamutData withPopularity(List<StopPlaceHierarchy> stopPlaceHierarchies, List<GroupOfStopPlaces> groupOfStopPlaces,
+                                       StringPool stringPool, ValidityIndex validity) {
         logger.info("Calculating and caching stop places popularity");
         StopPlacesPopularityCache stopPlacesPopularityCache =
                 stopPlacesPopularityCacheBuilder.build(stopPlaceHierarchies);
 
-        return new BahamutData(stopPlaceHierarchies, groupOfStopPlaces, stopPlacesPopularityCache);
+        logger.info("Calculating and caching group of stop places popularity");
+        GroupOfStopPlacesPopularityCache groupOfStopPlacesPopularityCache =
+                groupOfStopPlacesPopularityCacheBuilder.build(groupOfStopPlaces, stopPlacesPopularityCache);
+        if (groupOfStopPlacesPopularityCache.saturated() > 0) {
+            logger.info("Popularity of " + groupOfStopPlacesPopularityCache.saturated()
+                    + " group of stop places saturated to " + Long.MAX_VALUE);
+        }
+
+        return new BahamutData(stopPlaceHierarchies, groupOfStopPlaces, stopPlacesPopularityCache, groupOfStopPlacesPopularityCache,
+                stringPool, validity);
     }
 }
@@ -0,0 +1,72 @@
+package org.entur.bahamut.data;
+
+/**
+ * Open-addressing index from NeTEx ids to dense int indices (0..size-1), in the order they were added.
+ * Lets per-id values be kept in primitive arrays instead of boxed map values.
+ * The table is sized up front and not thread safe while being filled; lookups are safe once filled.
+ */
+public final class IdIndex {
+
+    public static final int NOT_FOUND = -1;
+
+    private final String[] ids;
+    private final String[] keys;
+    private final int[] indices;
+    private final int mask;
+    private int size;
+
+    public IdIndex(int expectedSize) {
+        int capacity = Integer.highestOneBit(Math.max(2, expectedSize) * 2 - 1) << 1;
+        this.ids = new String[expectedSize];
+        this.keys = new String[capacity];
+        this.indices = new int[capacity];
+        this.mask = capacity - 1;
+    }
+
+    /**
+     * @return the index of the added id, or NOT_FOUND if the id was already added.
+     */
+    public int add(String id) {
+        if (size == ids.length) {
+            throw new IllegalStateException("IdIndex is full, expected " + ids.length + " ids");
+        }
+        int slot = slot(id);
+        while (keys[slot] != null) {
+            if (keys[slot].equals(id)) {
+                return NOT_FOUND;
+            }
+            slot = (slot + 1) & mask;
+        }
+        keys[slot] = id;
+        indices[slot] = size;
+        ids[size] = id;
+        return size++;
+    }
+
+    public int indexOf(String id) {
+        if (id == null) {
+            return NOT_FOUND;
+        }
+        int slot = slot(id);
+        while (keys[slot] != null) {
+            if (keys[slot].equals(id)) {
+                return indices[slot];
+            }
+            slot = (slot + 1) & mask;
+        }
+        return NOT_FOUND;
+    }
+
+    public String id(int index) {
+        return ids[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    private int slot(String id) {
+        int hash = id.hashCode() * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & mask;
+    }
+}
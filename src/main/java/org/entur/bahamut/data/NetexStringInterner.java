@@ -0,0 +1,69 @@
+package org.entur.bahamut.data;
+
+import org.rutebanken.netex.model.*;
+
+import java.util.List;
+
+/**
+ * Replaces the repeated strings of parsed stop places and group of stop places with their pooled instances:
+ * versions, language codes, key list keys and parent site, member, tariff zone and topographic place refs.
+ * The duplicates read by the parser are garbage once this is done. The ids themselves are unique, so they are
+ * left out rather than kept in the pool for as long as the bahamut data is.
+ */
+final class NetexStringInterner {
+
+    private final StringPool stringPool;
+
+    NetexStringInterner(StringPool stringPool) {
+        this.stringPool = stringPool;
+    }
+
+    void internStopPlaces(List<StopPlace> stopPlaces) {
+        for (StopPlace stopPlace : stopPlaces) {
+            stopPlace.setVersion(stringPool.intern(stopPlace.getVersion()));
+            internLang(stopPlace.getName());
+            internLang(stopPlace.getDescription());
+            internAlternativeNames(stopPlace.getAlternativeNames());
+            internRef(stopPlace.getParentSiteRef());
+            internRef(stopPlace.getTopographicPlaceRef());
+            if (stopPlace.getTariffZones() != null) {
+                stopPlace.getTariffZones().getTariffZoneRef().forEach(this::internRef);
+            }
+            if (stopPlace.getKeyList() != null) {
+                stopPlace.getKeyList().getKeyValue()
+                        .forEach(keyValue -> keyValue.setKey(stringPool.intern(keyValue.getKey())));
+            }
+        }
+    }
+
+    void internGroupOfStopPlaces(List<GroupOfStopPlaces> groupOfStopPlaces) {
+        for (GroupOfStopPlaces group : groupOfStopPlaces) {
+            group.setVersion(stringPool.intern(group.getVersion()));
+            internLang(group.getName());
+            internLang(group.getDescription());
+            internAlternativeNames(group.getAlternativeNames());
+            if (group.getMembers() != null) {
+                group.getMembers().getStopPlaceRef().forEach(this::internRef);
+            }
+        }
+    }
+
+    private void internAlternativeNames(AlternativeNames_RelStructure alternativeNames) {
+        if (alternativeNames != null) {
+            alternativeNames.getAlternativeName().forEach(alternativeName -> internLang(alternativeName.getName()));
+        }
+    }
+
+    private void internLang(MultilingualString multilingualString) {
+        if (multilingualString != null) {
+            multilingualString.setLang(stringPool.intern(multilingualString.getLang()));
+        }
+    }
+
+    private void internRef(VersionOfObjectRefStructure ref) {
+        if (ref != null) {
+            ref.setRef(stringPool.intern(ref.getRef()));
+            ref.setVersion(stringPool.intern(ref.getVersion()));
+        }
+    }
+}
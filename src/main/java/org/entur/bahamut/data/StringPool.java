@@ -0,0 +1,78 @@
+package org.entur.bahamut.data;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Run scoped pool of canonical strings, so that refs, versions and language codes repeated across
+ * tens of thousands of stop places are kept once on the heap. Unlike String.intern, the pool is dropped
+ * with the bahamut data of the run. Thread safe, as the documents are built in parallel.
+ */
+public final class StringPool {
+
+    private static final Runnable NOOP = () -> {
+    };
+
+    private final ConcurrentHashMap<String, String> strings = new ConcurrentHashMap<>();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final Runnable onHit;
+    private final Runnable onMiss;
+
+    public StringPool() {
+        this(NOOP, NOOP);
+    }
+
+    /**
+     * @param onHit  called when a string was already in the pool, e.g. to increment a metrics counter.
+     * @param onMiss called when a string was added to the pool.
+     */
+    public StringPool(Runnable onHit, Runnable onMiss) {
+        this.onHit = onHit;
+        this.onMiss = onMiss;
+    }
+
+    /**
+     * @return the pooled string equal to the given one, or null if it is null.
+     */
+    public String intern(String string) {
+        if (string == null) {
+            return null;
+        }
+        String pooled = strings.putIfAbsent(string, string);
+        if (pooled != null) {
+            hits.increment();
+            onHit.run();
+            return pooled;
+        }
+        misses.increment();
+        onMiss.run();
+        return string;
+    }
+
+    /**
+     * The part of a NeTEx ref before the first colon, i.e. the codespace of the authority, from the pool.
+     * The whole ref is returned if it has no colon, as with ref.split(":")[0].
+     */
+    public String internPrefix(String ref) {
+        int colon = ref.indexOf(':');
+        return intern(colon < 0 ? ref : ref.substring(0, colon));
+    }
+
+    public int size() {
+        return strings.size();
+    }
+
+    public long hits() {
+        return hits.sum();
+    }
+
+    public long misses() {
+        return misses.sum();
+    }
+
+    @Override
+    public String toString() {
+        return size() + " strings, " + hits() + " hits, " + misses() + " misses";
+    }
+}
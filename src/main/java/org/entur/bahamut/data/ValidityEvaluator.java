@@ -0,0 +1,49 @@
+package org.entur.bahamut.data;
+
+import org.rutebanken.netex.model.ValidBetween;
+import org.springframework.util.CollectionUtils;
+
+import java.time.Instant;
+import java.time.LocalDateTime;
+import java.time.ZoneId;
+import java.util.List;
+
+/**
+ * Evaluates ValidBetween against one reference time, captured once for the run, instead of
+ * LocalDateTime.now() per check. The reference instant is converted to local time in the time zone
+ * of the Netex data, as the from and to dates of ValidBetween are local date times.
+ */
+public final class ValidityEvaluator {
+
+    private final LocalDateTime referenceTime;
+
+    private ValidityEvaluator(LocalDateTime referenceTime) {
+        this.referenceTime = referenceTime;
+    }
+
+    public static ValidityEvaluator at(Instant referenceInstant, ZoneId timeZone) {
+        return new ValidityEvaluator(LocalDateTime.ofInstant(referenceInstant, timeZone));
+    }
+
+    public LocalDateTime referenceTime() {
+        return referenceTime;
+    }
+
+    /**
+     * @return true if there is no ValidBetween, or the reference time is within one of them.
+     */
+    public boolean isValid(List<ValidBetween> validBetweens) {
+        return CollectionUtils.isEmpty(validBetweens) || validBetweens.stream().anyMatch(this::isValid);
+    }
+
+    public boolean isValid(ValidBetween validBetween) {
+        if (validBetween != null) {
+            if (validBetween.getFromDate() != null && validBetween.getFromDate().isAfter(referenceTime)) {
+                return false;
+            }
+
+            return validBetween.getToDate() == null || !validBetween.getToDate().isBefore(referenceTime);
+        }
+        return true;
+    }
+}
@@ -0,0 +1,53 @@
+package org.entur.bahamut.data;
+
+import org.entur.bahamut.groupOfStopPlaces.GroupOfStopPlacesPeliasDocumentMapper;
+import org.entur.bahamut.stopPlaces.StopPlaceValidator;
+import org.rutebanken.netex.model.GroupOfStopPlaces;
+import org.rutebanken.netex.model.StopPlace;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Validity of the stop places and group of stop places, evaluated once per entity when the bahamut data is built.
+ * Only the ids of the invalid ones are kept, as they are few.
+ */
+public final class ValidityIndex {
+
+    private final IdIndex invalidIds;
+
+    private ValidityIndex(IdIndex invalidIds) {
+        this.invalidIds = invalidIds;
+    }
+
+    public static ValidityIndex of(List<StopPlace> stopPlaces,
+                                   List<GroupOfStopPlaces> groupOfStopPlaces,
+                                   ValidityEvaluator validityEvaluator) {
+        List<String> invalid = new ArrayList<>();
+        for (StopPlace stopPlace : stopPlaces) {
+            if (!StopPlaceValidator.isValid(stopPlace, validityEvaluator)) {
+                invalid.add(stopPlace.getId());
+            }
+        }
+        for (GroupOfStopPlaces group : groupOfStopPlaces) {
+            if (!GroupOfStopPlacesPeliasDocumentMapper.isValidGroupOfStopPlaces(group, validityEvaluator)) {
+                invalid.add(group.getId());
+            }
+        }
+
+        IdIndex invalidIds = new IdIndex(invalid.size());
+        invalid.forEach(invalidIds::add);
+        return new ValidityIndex(invalidIds);
+    }
+
+    /**
+     * @return false for the ids of stop places and group of stop places evaluated as invalid, true otherwise.
+     */
+    public boolean isValid(String id) {
+        return invalidIds.indexOf(id) == IdIndex.NOT_FOUND;
+    }
+
+    public int invalid() {
+        return invalidIds.size();
+    }
+}
@@ -0,0 +1,166 @@
+package org.entur.bahamut.delta;
+
+import org.entur.bahamut.blobStore.BahamutBlobStoreService;
+import org.entur.bahamut.data.BahamutData;
+import org.entur.bahamut.groupOfStopPlaces.GroupOfStopPlacesPeliasDocumentMapper;
+import org.entur.bahamut.stopPlaces.StopPlacePeliasDocumentMapper;
+import org.entur.geocoder.csv.CSVCreator;
+import org.entur.geocoder.model.PeliasDocument;
+import org.rutebanken.netex.model.GroupOfStopPlaces;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipOutputStream;
+
+/**
+ * Creates a delta export next to the full export, holding only the pelias documents of the stop places and
+ * group of stop places that are added or changed since the previous export, and a list of the changes.
+ * <p>
+ * The delta zip contains two csv files:
+ * <ul>
+ *     <li>&lt;filename&gt;_delta.csv: pelias documents for all added and changed sources</li>
+ *     <li>&lt;filename&gt;_changes.csv: id,change for every ADDED, CHANGED and REMOVED source.
+ *     Documents of CHANGED and REMOVED sources should be deleted before indexing the delta documents,
+ *     since the number of alias documents per source may change.</li>
+ * </ul>
+ * Changes are detected from the content hash of the fingerprints, the version is kept for reference only.
+ */
+@Component
+public class DeltaExporter {
+
+    private static final Logger logger = LoggerFactory.getLogger(DeltaExporter.class);
+
+    enum Change {ADDED, CHANGED, REMOVED}
+
+    private final String fingerprintsFile;
+    private final boolean gosInclude;
+    private final BahamutBlobStoreService bahamutBlobStoreService;
+    private final StopPlacePeliasDocumentMapper stopPlacePeliasDocumentMapper;
+    private final GroupOfStopPlacesPeliasDocumentMapper groupOfStopPlacesPeliasDocumentMapper;
+
+    public DeltaExporter(
+            BahamutBlobStoreService bahamutBlobStoreService,
+            StopPlacePeliasDocumentMapper stopPlacePeliasDocumentMapper,
+            GroupOfStopPlacesPeliasDocumentMapper groupOfStopPlacesPeliasDocumentMapper,
+            @Value("${bahamut.delta.fingerprints.file:bahamut_fingerprints.csv.gz}") String fingerprintsFile,
+            @Value("${bahamut.gos.include:true}") boolean gosInclude) {
+        this.bahamutBlobStoreService = bahamutBlobStoreService;
+        this.stopPlacePeliasDocumentMapper = stopPlacePeliasDocumentMapper;
+        this.groupOfStopPlacesPeliasDocumentMapper = groupOfStopPlacesPeliasDocumentMapper;
+        this.fingerprintsFile = fingerprintsFile;
+        this.gosInclude = gosInclude;
+    }
+
+    /**
+     * Upload the delta export as &lt;filename&gt;_delta.zip, and replace the stored fingerprints with the current ones.
+     */
+    public void export(BahamutData bahamutData, String filename) {
+        Fingerprints currentFingerprints = createFingerprints(bahamutData);
+        Fingerprints previousFingerprints = loadFingerprints();
+
+        Map<String, Change> changes = findChanges(previousFingerprints, currentFingerprints);
+        logger.info("Delta export contains " + changes.size() + " changed stop places and group of stop places");
+
+        Stream<PeliasDocument> stopPlaceDocuments = bahamutData.stopPlaceHierarchies().stream()
+                .filter(stopPlaceHierarchy -> isAddedOrChanged(changes, stopPlaceHierarchy.place().getId()))
+                .flatMap(stopPlaceHierarchy -> stopPlacePeliasDocumentMapper.toPeliasDocumentsForNames(
+                        stopPlaceHierarchy, bahamutData))
+                .filter(StopPlacePeliasDocumentMapper::isValidPeliasDocument);
+
+        Stream<PeliasDocument> groupOfStopPlacesDocuments = gosInclude
+                ? bahamutData.groupOfStopPlaces().stream()
+                .filter(groupOfStopPlaces -> isAddedOrChanged(changes, groupOfStopPlaces.getId()))
+                .flatMap(groupOfStopPlaces -> groupOfStopPlacesPeliasDocumentMapper.toPeliasDocumentsForNames(
+                        groupOfStopPlaces, bahamutData))
+                .filter(GroupOfStopPlacesPeliasDocumentMapper::isValidPeliasDocument)
+                : Stream.empty();
+
+        InputStream deltaCsv = CSVCreator.create(Stream.concat(stopPlaceDocuments, groupOfStopPlacesDocuments));
+
+        bahamutBlobStoreService.uploadBlob(filename + "_delta.zip",
+                zipDeltaFiles(filename, deltaCsv, createChangesCsv(changes)));
+        bahamutBlobStoreService.uploadBlob(fingerprintsFile, currentFingerprints.write());
+    }
+
+    private Fingerprints createFingerprints(BahamutData bahamutData) {
+        Map<String, Fingerprint> fingerprintPerId = new HashMap<>();
+        bahamutData.stopPlaceHierarchies().forEach(stopPlaceHierarchy -> {
+            String id = stopPlaceHierarchy.place().getId();
+            fingerprintPerId.put(id, FingerprintCalculator.of(
+                    stopPlaceHierarchy, bahamutData.stopPlacesPopularityCache().getPopularity(id),
+                    bahamutData.validity().isValid(id)));
+        });
+
+        if (gosInclude) {
+            for (GroupOfStopPlaces groupOfStopPlaces : bahamutData.groupOfStopPlaces()) {
+                fingerprintPerId.put(groupOfStopPlaces.getId(), FingerprintCalculator.of(
+                        groupOfStopPlaces,
+                        bahamutData.groupOfStopPlacesPopularityCache().getPopularity(groupOfStopPlaces.getId()),
+                        bahamutData.validity().isValid(groupOfStopPlaces.getId())));
+            }
+        }
+        return new Fingerprints(fingerprintPerId);
+    }
+
+    private Fingerprints loadFingerprints() {
+        try {
+            InputStream inputStream = bahamutBlobStoreService.getBlob(fingerprintsFile);
+            if (inputStream != null) {
+                return Fingerprints.read(inputStream);
+            }
+        } catch (RuntimeException e) {
+            logger.warn("Unable to load fingerprints of the previous export, delta will contain everything: " + e.getMessage());
+        }
+        return Fingerprints.empty();
+    }
+
+    static Map<String, Change> findChanges(Fingerprints previous, Fingerprints current) {
+        Map<String, Change> changes = new TreeMap<>();
+        current.fingerprintPerId().forEach((id, fingerprint) -> {
+            Fingerprint previousFingerprint = previous.get(id);
+            if (previousFingerprint == null) {
+                changes.put(id, Change.ADDED);
+            } else if (previousFingerprint.hash() != fingerprint.hash()) {
+                changes.put(id, Change.CHANGED);
+            }
+        });
+        previous.fingerprintPerId().keySet().stream()
+                .filter(id -> current.get(id) == null)
+                .forEach(id -> changes.put(id, Change.REMOVED));
+        return changes;
+    }
+
+    private static boolean isAddedOrChanged(Map<String, Change> changes, String id) {
+        Change change = changes.get(id);
+        return change == Change.ADDED || change == Change.CHANGED;
+    }
+
+    private static InputStream createChangesCsv(Map<String, Change> changes) {
+        var csv = new StringBuilder("id,change\n");
+        changes.forEach((id, change) -> csv.append(id).append(',').append(change).append('\n'));
+        return new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static InputStream zipDeltaFiles(String filename, InputStream deltaCsv, InputStream changesCsv) {
+        var outputStream = new ByteArrayOutputStream();
+        try (var zipOutputStream = new ZipOutputStream(outputStream)) {
+            zipOutputStream.putNextEntry(new ZipEntry(filename + "_delta.csv"));
+            deltaCsv.transferTo(zipOutputStream);
+            zipOutputStream.closeEntry();
+
+            zipOutputStream.putNextEntry(new ZipEntry(filename + "_changes.csv"));
+            changesCsv.transferTo(zipOutputStream);
+            zipOutputStream.closeEntry();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return new ByteArrayInputStream(outputStream.toByteArray());
+    }
+}
@@ -0,0 +1,7 @@
+package org.entur.bahamut.delta;
+
+/**
+ * Version and content hash of the source of a set of pelias documents, being a stop place or a group of stop places.
+ */
+public record Fingerprint(String version, long hash) {
+}
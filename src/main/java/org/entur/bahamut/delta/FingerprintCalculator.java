@@ -0,0 +1,89 @@
+package org.entur.bahamut.delta;
+
+import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchy;
+import org.rutebanken.netex.model.GroupOfStopPlaces;
+import org.rutebanken.netex.model.StopPlace;
+import org.springframework.util.CollectionUtils;
+
+/**
+ * Fingerprints covering everything the pelias documents of a stop place or group of stop places are built from.
+ * For stop places this includes the parents, which names and labels are inherited, and the children,
+ * which names and stop types are collected. Validity is included as well, since it changes over time
+ * without the netex data changing.
+ */
+class FingerprintCalculator {
+
+    private FingerprintCalculator() {
+    }
+
+    static Fingerprint of(StopPlaceHierarchy placeHierarchy, Long popularity, boolean valid) {
+        StopPlace place = placeHierarchy.place();
+        var hasher = new FingerprintHasher()
+                .add(String.valueOf(popularity))
+                .add(valid);
+
+        addStopPlace(hasher, place);
+        for (var parent = placeHierarchy.parent(); parent != null; parent = parent.parent()) {
+            addStopPlace(hasher, parent.place());
+        }
+        addChildren(hasher, placeHierarchy);
+
+        return new Fingerprint(place.getVersion(), hasher.hash());
+    }
+
+    static Fingerprint of(GroupOfStopPlaces groupOfStopPlaces, Long popularity, boolean valid) {
+        var hasher = new FingerprintHasher()
+                .add(String.valueOf(popularity))
+                .add(valid)
+                .add(groupOfStopPlaces.getId())
+                .add(groupOfStopPlaces.getName())
+                .add(groupOfStopPlaces.getDescription())
+                .add(groupOfStopPlaces.getAlternativeNames())
+                .add(groupOfStopPlaces.getCentroid());
+
+        if (groupOfStopPlaces.getMembers() != null) {
+            for (var member : groupOfStopPlaces.getMembers().getStopPlaceRef()) {
+                hasher.add(member);
+            }
+        }
+
+        return new Fingerprint(groupOfStopPlaces.getVersion(), hasher.hash());
+    }
+
+    private static void addChildren(FingerprintHasher hasher, StopPlaceHierarchy placeHierarchy) {
+        if (!CollectionUtils.isEmpty(placeHierarchy.children())) {
+            for (StopPlaceHierarchy child : placeHierarchy.children()) {
+                addStopPlace(hasher, child.place());
+                addChildren(hasher, child);
+            }
+        }
+        hasher.add((String) null);
+    }
+
+    private static void addStopPlace(FingerprintHasher hasher, StopPlace place) {
+        hasher.add(place.getId())
+                .add(place.getName())
+                .add(place.getDescription())
+                .add(place.getAlternativeNames())
+                .add(place.getCentroid())
+                .add(place.getTopographicPlaceRef())
+                .add(place.getParentSiteRef())
+                .add(place.getStopPlaceType())
+                .add(place.getTransportMode())
+                .add(place.getAirSubmode())
+                .add(place.getBusSubmode())
+                .add(place.getWaterSubmode())
+                .add(place.getRailSubmode())
+                .add(place.getMetroSubmode())
+                .add(place.getTramSubmode())
+                .add(place.getWeighting())
+                .add(place.getValidBetween());
+
+        if (place.getTariffZones() != null && place.getTariffZones().getTariffZoneRef() != null) {
+            for (var tariffZoneRef : place.getTariffZones().getTariffZoneRef()) {
+                hasher.add(tariffZoneRef);
+            }
+        }
+        hasher.add((String) null);
+    }
+}
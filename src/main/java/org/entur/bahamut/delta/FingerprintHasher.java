@@ -0,0 +1,86 @@
+package org.entur.bahamut.delta;
+
+import org.rutebanken.netex.model.*;
+
+import java.math.BigDecimal;
+import java.util.List;
+
+/**
+ * 64-bit FNV-1a hash over the netex fields that end up in the pelias documents.
+ */
+class FingerprintHasher {
+
+    private static final long FNV_OFFSET_BASIS = 0xcbf29ce484222325L;
+    private static final long FNV_PRIME = 0x100000001b3L;
+    private static final char SEPARATOR = '\u001f';
+
+    private long hash = FNV_OFFSET_BASIS;
+
+    long hash() {
+        return hash;
+    }
+
+    FingerprintHasher add(String value) {
+        if (value != null) {
+            for (int i = 0; i < value.length(); i++) {
+                addChar(value.charAt(i));
+            }
+        }
+        addChar(SEPARATOR);
+        return this;
+    }
+
+    FingerprintHasher add(Enum<?> value) {
+        return add(value != null ? value.name() : null);
+    }
+
+    FingerprintHasher add(BigDecimal value) {
+        return add(value != null ? value.toPlainString() : null);
+    }
+
+    FingerprintHasher add(long value) {
+        return add(Long.toString(value));
+    }
+
+    FingerprintHasher add(boolean value) {
+        return add(value ? "1" : "0");
+    }
+
+    FingerprintHasher add(MultilingualString value) {
+        return value != null ? add(value.getLang()).add(value.getValue()) : add((String) null);
+    }
+
+    FingerprintHasher add(AlternativeNames_RelStructure alternativeNames) {
+        if (alternativeNames != null) {
+            for (AlternativeName alternativeName : alternativeNames.getAlternativeName()) {
+                add(alternativeName.getNameType()).add(alternativeName.getName());
+            }
+        }
+        return add((String) null);
+    }
+
+    FingerprintHasher add(SimplePoint_VersionStructure centroid) {
+        if (centroid != null && centroid.getLocation() != null) {
+            return add(centroid.getLocation().getLatitude()).add(centroid.getLocation().getLongitude());
+        }
+        return add((String) null);
+    }
+
+    FingerprintHasher add(VersionOfObjectRefStructure ref) {
+        return add(ref != null ? ref.getRef() : null);
+    }
+
+    FingerprintHasher add(List<ValidBetween> validBetweens) {
+        if (validBetweens != null) {
+            for (ValidBetween validBetween : validBetweens) {
+                add(String.valueOf(validBetween.getFromDate())).add(String.valueOf(validBetween.getToDate()));
+            }
+        }
+        return add((String) null);
+    }
+
+    private void addChar(char c) {
+        hash = (hash ^ (c & 0xff)) * FNV_PRIME;
+        hash = (hash ^ (c >>> 8)) * FNV_PRIME;
+    }
+}
@@ -0,0 +1,63 @@
+package org.entur.bahamut.delta;
+
+import java.io.*;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.zip.GZIPInputStream;
+import java.util.zip.GZIPOutputStream;
+
+/**
+ * Fingerprints of all the stop places and group of stop places of an export, per netex id.
+ * Stored as gzipped lines of id;version;hash, sorted by id so the same fingerprints are always stored
+ * as the same bytes.
+ */
+public record Fingerprints(Map<String, Fingerprint> fingerprintPerId) {
+
+    private static final String SEPARATOR = ";";
+
+    public static Fingerprints empty() {
+        return new Fingerprints(Map.of());
+    }
+
+    public Fingerprint get(String id) {
+        return fingerprintPerId.get(id);
+    }
+
+    public static Fingerprints read(InputStream inputStream) {
+        Map<String, Fingerprint> fingerprintPerId = new HashMap<>();
+        try (var reader = new BufferedReader(new InputStreamReader(
+                new GZIPInputStream(inputStream), StandardCharsets.UTF_8))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                String[] columns = line.split(SEPARATOR, -1);
+                fingerprintPerId.put(columns[0], new Fingerprint(
+                        columns[1].isEmpty() ? null : columns[1],
+                        Long.parseUnsignedLong(columns[2], 16)));
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return new Fingerprints(fingerprintPerId);
+    }
+
+    public InputStream write() {
+        var outputStream = new ByteArrayOutputStream();
+        try (var writer = new BufferedWriter(new OutputStreamWriter(
+                new GZIPOutputStream(outputStream), StandardCharsets.UTF_8))) {
+            for (Map.Entry<String, Fingerprint> entry : new TreeMap<>(fingerprintPerId).entrySet()) {
+                Fingerprint fingerprint = entry.getValue();
+                writer.write(entry.getKey());
+                writer.write(SEPARATOR);
+                writer.write(fingerprint.version() != null ? fingerprint.version() : "");
+                writer.write(SEPARATOR);
+                writer.write(Long.toHexString(fingerprint.hash()));
+                writer.newLine();
+            }
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return new ByteArrayInputStream(outputStream.toByteArray());
+    }
+}
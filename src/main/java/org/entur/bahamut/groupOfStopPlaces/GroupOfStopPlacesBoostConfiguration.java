@@ -6,8 +6,6 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.Objects;
-
 @Component
 public class GroupOfStopPlacesBoostConfiguration {
 
@@ -24,8 +22,7 @@ public class GroupOfStopPlacesBoostConfiguration {
         }
         try {
             double popularity = gosBoostFactor * groupOfStopPlaces.getMembers().getStopPlaceRef().stream()
-                    .map(sp -> stopPlacesPopularityCache.getPopularity(sp.getRef()))
-                    .filter(Objects::nonNull)
+                    .mapToLong(sp -> stopPlacesPopularityCache.getPopularity(sp.getRef(), 1L))
                     .reduce(1L, Math::multiplyExact);
 
             return (long) popularity;
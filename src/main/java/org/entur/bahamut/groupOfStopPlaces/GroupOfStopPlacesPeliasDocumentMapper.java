@@ -1,8 +1,8 @@
 package org.entur.bahamut.groupOfStopPlaces;
 
-import org.entur.bahamut.Utilities;
+import org.entur.bahamut.OrderedParallelMapper;
 import org.entur.bahamut.data.BahamutData;
-import org.entur.bahamut.stopPlaces.stopPlacePopularityCache.StopPlacesPopularityCache;
+import org.entur.bahamut.data.ValidityEvaluator;
 import org.entur.geocoder.model.PeliasDocument;
 import org.entur.geocoder.model.PeliasId;
 import org.rutebanken.netex.model.*;
@@ -29,17 +29,15 @@ public class GroupOfStopPlacesPeliasDocumentMapper {
     public static final String GROUP_OF_STOP_PLACES_CATEGORY = "GroupOfStopPlaces";
     public static final String GROUP_OF_STOP_PLACE_LAYER = "GroupOfStopPlaces";
 
-    private final GroupOfStopPlacesBoostConfiguration groupOfStopPlacesBoostConfiguration;
+    private final OrderedParallelMapper orderedParallelMapper;
 
-    public GroupOfStopPlacesPeliasDocumentMapper(GroupOfStopPlacesBoostConfiguration groupOfStopPlacesBoostConfiguration) {
-        this.groupOfStopPlacesBoostConfiguration = groupOfStopPlacesBoostConfiguration;
+    public GroupOfStopPlacesPeliasDocumentMapper(OrderedParallelMapper orderedParallelMapper) {
+        this.orderedParallelMapper = orderedParallelMapper;
     }
 
     public Stream<PeliasDocument> toPeliasDocuments(BahamutData bahamutData) {
-        return bahamutData.groupOfStopPlaces().stream()
-                .flatMap(groupOfStopPlaces ->
-                        toPeliasDocumentsForNames(groupOfStopPlaces,
-                                bahamutData.stopPlacesPopularityCache()))
+        return orderedParallelMapper.flatMap(bahamutData.groupOfStopPlaces(),
+                        groupOfStopPlaces -> toPeliasDocumentsForNames(groupOfStopPlaces, bahamutData))
                 .filter(GroupOfStopPlacesPeliasDocumentMapper::isValidPeliasDocument);
     }
 
@@ -57,20 +55,20 @@ public class GroupOfStopPlacesPeliasDocumentMapper {
      * Pelias does not yet support queries in multiple languages / for aliases. When support for this is ready this mapping should be
      * refactored to produce a single document per GoS.
      */
-    public Stream<PeliasDocument> toPeliasDocumentsForNames(GroupOfStopPlaces groupOfStopPlaces,
-                                                            StopPlacesPopularityCache stopPlacesPopularityCache) {
+    public Stream<PeliasDocument> toPeliasDocumentsForNames(GroupOfStopPlaces groupOfStopPlaces, BahamutData bahamutData) {
 
-        if (!isValidGroupOfStopPlaces(groupOfStopPlaces)) {
+        if (!bahamutData.validity().isValid(groupOfStopPlaces.getId())) {
             return Stream.empty();
         }
 
+        Long popularity = bahamutData.groupOfStopPlacesPopularityCache().getPopularity(groupOfStopPlaces.getId());
         AtomicInteger cnt = new AtomicInteger();
 
         return getNames(groupOfStopPlaces).stream()
                 .map(documentName -> toPeliasDocument(
                         createId(groupOfStopPlaces, cnt),
                         documentName,
-                        groupOfStopPlacesBoostConfiguration.getPopularity(groupOfStopPlaces, stopPlacesPopularityCache),
+                        popularity,
                         groupOfStopPlaces));
     }
 
@@ -95,9 +93,8 @@ public class GroupOfStopPlacesPeliasDocumentMapper {
         return filterUnique(names);
     }
 
-    public static boolean isValidGroupOfStopPlaces(GroupOfStopPlaces object) {
-        return CollectionUtils.isEmpty(object.getValidBetween())
-                || object.getValidBetween().stream().anyMatch(Utilities::isValidNow);
+    public static boolean isValidGroupOfStopPlaces(GroupOfStopPlaces object, ValidityEvaluator validityEvaluator) {
+        return validityEvaluator.isValid(object.getValidBetween());
     }
 
     private static PeliasDocument toPeliasDocument(String documentId,
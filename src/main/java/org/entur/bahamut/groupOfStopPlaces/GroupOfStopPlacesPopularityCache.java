@@ -0,0 +1,41 @@
+package org.entur.bahamut.groupOfStopPlaces;
+
+import org.entur.bahamut.data.IdIndex;
+
+/**
+ * Popularity per group of stop places id, computed once per group from the popularity of its members,
+ * kept as a long[] indexed by an IdIndex like StopPlacesPopularityCache.
+ */
+public final class GroupOfStopPlacesPopularityCache {
+
+    static final long NO_POPULARITY = Long.MIN_VALUE;
+
+    private final IdIndex idIndex;
+    private final long[] popularity;
+    private final int saturated;
+
+    GroupOfStopPlacesPopularityCache(IdIndex idIndex, long[] popularity, int saturated) {
+        this.idIndex = idIndex;
+        this.popularity = popularity;
+        this.saturated = saturated;
+    }
+
+    /**
+     * @return the popularity of the group of stop places, or null if the group has no members or is not cached.
+     */
+    public Long getPopularity(String groupOfStopPlacesId) {
+        int index = idIndex.indexOf(groupOfStopPlacesId);
+        return index == IdIndex.NOT_FOUND || popularity[index] == NO_POPULARITY ? null : popularity[index];
+    }
+
+    public int size() {
+        return idIndex.size();
+    }
+
+    /**
+     * @return the number of groups whose popularity saturated to Long.MAX_VALUE.
+     */
+    public int saturated() {
+        return saturated;
+    }
+}
@@ -0,0 +1,59 @@
+package org.entur.bahamut.groupOfStopPlaces;
+
+import org.entur.bahamut.data.IdIndex;
+import org.entur.bahamut.stopPlaces.stopPlacePopularityCache.StopPlacesPopularityCache;
+import org.rutebanken.netex.model.GroupOfStopPlaces;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.stream.IntStream;
+
+@Component
+public class GroupOfStopPlacesPopularityCacheBuilder {
+
+    private static final Logger logger = LoggerFactory.getLogger(GroupOfStopPlacesPopularityCacheBuilder.class);
+
+    private final GroupOfStopPlacesBoostConfiguration groupOfStopPlacesBoostConfiguration;
+
+    @Autowired
+    public GroupOfStopPlacesPopularityCacheBuilder(GroupOfStopPlacesBoostConfiguration groupOfStopPlacesBoostConfiguration) {
+        this.groupOfStopPlacesBoostConfiguration = groupOfStopPlacesBoostConfiguration;
+    }
+
+    /**
+     * The popularity of the groups is computed in parallel, as large groups multiply the popularity of many members.
+     * A group of stop places id found more than once, e.g. in several SiteFrames, gets the popularity
+     * of its first occurrence.
+     */
+    public GroupOfStopPlacesPopularityCache build(List<GroupOfStopPlaces> allGroupOfStopPlaces,
+                                                  StopPlacesPopularityCache stopPlacesPopularityCache) {
+        IdIndex idIndex = new IdIndex(allGroupOfStopPlaces.size());
+        List<GroupOfStopPlaces> groupOfStopPlaces = new ArrayList<>(allGroupOfStopPlaces.size());
+        for (GroupOfStopPlaces group : allGroupOfStopPlaces) {
+            if (idIndex.add(group.getId()) != IdIndex.NOT_FOUND) {
+                groupOfStopPlaces.add(group);
+            }
+        }
+        int duplicates = allGroupOfStopPlaces.size() - groupOfStopPlaces.size();
+        if (duplicates > 0) {
+            logger.warn("Found " + duplicates + " group of stop places with an id already read, "
+                    + "using the popularity of the first occurrence");
+        }
+
+        long[] popularity = new long[groupOfStopPlaces.size()];
+        IntStream.range(0, groupOfStopPlaces.size()).parallel().forEach(index -> {
+            Long groupPopularity = groupOfStopPlacesBoostConfiguration.getPopularity(
+                    groupOfStopPlaces.get(index), stopPlacesPopularityCache);
+            popularity[index] = groupPopularity != null ? groupPopularity : GroupOfStopPlacesPopularityCache.NO_POPULARITY;
+        });
+        int saturated = (int) IntStream.range(0, popularity.length)
+                .filter(index -> popularity[index] == Long.MAX_VALUE)
+                .count();
+
+        return new GroupOfStopPlacesPopularityCache(idIndex, popularity, saturated);
+    }
+}
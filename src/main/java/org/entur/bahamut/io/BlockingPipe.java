@@ -0,0 +1,171 @@
+package org.entur.bahamut.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.Arrays;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Bounded pipe between a writing and a reading thread, passing bytes in blocks through a blocking queue.
+ * The writer blocks when the queue is full, which throttles it to the pace of the reader.
+ * <p>
+ * Unlike PipedInputStream, a failure on the writing side is reported to the reader as an IOException
+ * instead of an end of stream, so a failed write can never be mistaken for a complete one.
+ * Closing the input stream makes any further write fail.
+ */
+public class BlockingPipe {
+
+    private static final byte[] END_OF_STREAM = new byte[0];
+    private static final long POLL_MILLIS = 100;
+
+    private final int blockSize;
+    private final BlockingQueue<byte[]> blocks;
+
+    private volatile Throwable writeFailure;
+    private volatile boolean readerClosed;
+
+    public BlockingPipe(int blockSize, int capacity) {
+        this.blockSize = blockSize;
+        this.blocks = new ArrayBlockingQueue<>(capacity);
+    }
+
+    public OutputStream outputStream() {
+        return new PipeOutputStream();
+    }
+
+    public InputStream inputStream() {
+        return new PipeInputStream();
+    }
+
+    /**
+     * Abort the pipe from the writing side. The reader fails with the given cause after the blocks already written.
+     */
+    public void fail(Throwable cause) {
+        writeFailure = cause;
+        try {
+            put(END_OF_STREAM);
+        } catch (IOException e) {
+            // The reader is already gone, nobody left to notify.
+        }
+    }
+
+    private void put(byte[] block) throws IOException {
+        try {
+            while (!blocks.offer(block, POLL_MILLIS, TimeUnit.MILLISECONDS)) {
+                if (readerClosed) {
+                    throw new IOException("Pipe closed by reader");
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IOException(e);
+        }
+    }
+
+    private class PipeOutputStream extends OutputStream {
+
+        private final byte[] buffer = new byte[blockSize];
+        private int position;
+        private boolean closed;
+
+        @Override
+        public void write(int b) throws IOException {
+            if (position == buffer.length) {
+                flushBuffer();
+            }
+            buffer[position++] = (byte) b;
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            while (len > 0) {
+                if (position == buffer.length) {
+                    flushBuffer();
+                }
+                int length = Math.min(len, buffer.length - position);
+                System.arraycopy(b, off, buffer, position, length);
+                position += length;
+                off += length;
+                len -= length;
+            }
+        }
+
+        @Override
+        public void flush() throws IOException {
+            flushBuffer();
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                flushBuffer();
+                put(END_OF_STREAM);
+            }
+        }
+
+        private void flushBuffer() throws IOException {
+            if (position > 0) {
+                put(Arrays.copyOf(buffer, position));
+                position = 0;
+            }
+        }
+    }
+
+    private class PipeInputStream extends InputStream {
+
+        private byte[] block;
+        private int position;
+        private boolean endOfStream;
+
+        @Override
+        public int read() throws IOException {
+            if (!nextBlock()) {
+                return -1;
+            }
+            return block[position++] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            if (len == 0) {
+                return 0;
+            }
+            if (!nextBlock()) {
+                return -1;
+            }
+            int length = Math.min(len, block.length - position);
+            System.arraycopy(block, position, b, off, length);
+            position += length;
+            return length;
+        }
+
+        @Override
+        public void close() {
+            readerClosed = true;
+            blocks.clear();
+        }
+
+        private boolean nextBlock() throws IOException {
+            while (!endOfStream && (block == null || position == block.length)) {
+                try {
+                    block = blocks.take();
+                    position = 0;
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IOException(e);
+                }
+                if (block == END_OF_STREAM) {
+                    endOfStream = true;
+                }
+            }
+            if (endOfStream && writeFailure != null) {
+                throw new IOException("Writing to the pipe failed", writeFailure);
+            }
+            return !endOfStream;
+        }
+    }
+}
@@ -0,0 +1,45 @@
+package org.entur.bahamut.io;
+
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.security.DigestInputStream;
+import java.security.DigestOutputStream;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+
+/**
+ * SHA-256 digest of the content passing through the wrapped streams, in the order it passes.
+ * Not thread safe, the wrapped streams must be read or written one after the other.
+ */
+public class ContentDigest {
+
+    private final MessageDigest messageDigest;
+    private String hex;
+
+    public ContentDigest() {
+        try {
+            this.messageDigest = MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    public InputStream digest(InputStream inputStream) {
+        return new DigestInputStream(inputStream, messageDigest);
+    }
+
+    public OutputStream digest(OutputStream outputStream) {
+        return new DigestOutputStream(outputStream, messageDigest);
+    }
+
+    /**
+     * The digest as hex, completing it on the first call. Content passing through the streams after that is ignored.
+     */
+    public String hex() {
+        if (hex == null) {
+            hex = HexFormat.of().formatHex(messageDigest.digest());
+        }
+        return hex;
+    }
+}
@@ -0,0 +1,46 @@
+package org.entur.bahamut.io;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.function.LongConsumer;
+
+/**
+ * Reports the number of bytes read through the stream to the given consumer, as they are read.
+ */
+public class CountingInputStream extends FilterInputStream {
+
+    private final LongConsumer bytesRead;
+
+    public CountingInputStream(InputStream inputStream, LongConsumer bytesRead) {
+        super(inputStream);
+        this.bytesRead = bytesRead;
+    }
+
+    @Override
+    public int read() throws IOException {
+        int b = super.read();
+        if (b != -1) {
+            bytesRead.accept(1);
+        }
+        return b;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        int n = super.read(b, off, len);
+        if (n > 0) {
+            bytesRead.accept(n);
+        }
+        return n;
+    }
+
+    @Override
+    public long skip(long n) throws IOException {
+        long skipped = super.skip(n);
+        if (skipped > 0) {
+            bytesRead.accept(skipped);
+        }
+        return skipped;
+    }
+}
@@ -0,0 +1,101 @@
+package org.entur.bahamut.io;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Objects;
+
+/**
+ * Reads a file through memory mapped segments, so reads are served from the page cache
+ * straight into the caller's buffer, without read() system calls or intermediate buffers.
+ * The file is mapped one segment at a time, as a mapping is limited to 2GB.
+ */
+public class MappedFileInputStream extends InputStream {
+
+    private static final long SEGMENT_SIZE = 1L << 30;
+
+    private final FileChannel channel;
+    private final long segmentSize;
+    private final long size;
+    private long position;
+    private long segmentStart;
+    private MappedByteBuffer segment;
+
+    public MappedFileInputStream(Path path) throws IOException {
+        this(path, SEGMENT_SIZE);
+    }
+
+    MappedFileInputStream(Path path, long segmentSize) throws IOException {
+        if (segmentSize <= 0 || segmentSize > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Segment size must be between 1 and " + Integer.MAX_VALUE + ", was " + segmentSize);
+        }
+        this.channel = FileChannel.open(path, StandardOpenOption.READ);
+        this.segmentSize = segmentSize;
+        this.size = channel.size();
+    }
+
+    @Override
+    public int read() throws IOException {
+        if (!nextSegment()) {
+            return -1;
+        }
+        position++;
+        return segment.get() & 0xff;
+    }
+
+    @Override
+    public int read(byte[] b, int off, int len) throws IOException {
+        Objects.checkFromIndexSize(off, len, b.length);
+        if (len == 0) {
+            return 0;
+        }
+        if (!nextSegment()) {
+            return -1;
+        }
+        int n = Math.min(len, segment.remaining());
+        segment.get(b, off, n);
+        position += n;
+        return n;
+    }
+
+    @Override
+    public long skip(long n) {
+        long skipped = Math.min(n, size - position);
+        if (skipped <= 0) {
+            return 0;
+        }
+        position += skipped;
+        if (segment != null && position - segmentStart <= segment.limit()) {
+            segment.position((int) (position - segmentStart));
+        } else {
+            segment = null;
+        }
+        return skipped;
+    }
+
+    @Override
+    public int available() {
+        return (int) Math.min(size - position, Integer.MAX_VALUE);
+    }
+
+    @Override
+    public void close() throws IOException {
+        segment = null;
+        channel.close();
+    }
+
+    private boolean nextSegment() throws IOException {
+        if (segment != null && segment.hasRemaining()) {
+            return true;
+        }
+        if (position >= size) {
+            return false;
+        }
+        segmentStart = position;
+        segment = channel.map(FileChannel.MapMode.READ_ONLY, position, Math.min(segmentSize, size - position));
+        return true;
+    }
+}
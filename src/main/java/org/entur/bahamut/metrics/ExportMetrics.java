@@ -0,0 +1,301 @@
+package org.entur.bahamut.metrics;
+
+import io.micrometer.core.instrument.Counter;
+import io.micrometer.core.instrument.DistributionSummary;
+import io.micrometer.core.instrument.Gauge;
+import io.micrometer.core.instrument.MeterRegistry;
+import io.micrometer.core.instrument.Timer;
+import org.entur.bahamut.data.StringPool;
+import org.entur.bahamut.io.CountingInputStream;
+import org.springframework.stereotype.Component;
+
+import java.io.FilterInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.time.Instant;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Records wall time, documents, bytes in and out and heap and GC deltas for each stage of an export run,
+ * both as Micrometer meters tagged with the stage, and as a run report.
+ * <p>
+ * Stages returning a lazy stream, like the documents stream or a blob read while it is downloaded, are recorded
+ * with lazyStage over the consumption of the stream rather than its creation. The time of the consumer is not
+ * part of such a stage, but the time of the lazy stage is part of the consuming stage, e.g. map of csv.
+ */
+@Component
+public class ExportMetrics {
+
+    private static final String PREFIX = "bahamut.export.stage.";
+
+    private final MeterRegistry meterRegistry;
+    private final Map<String, StageMetrics> stages = new LinkedHashMap<>();
+    private Instant started;
+
+    public ExportMetrics(MeterRegistry meterRegistry) {
+        this.meterRegistry = meterRegistry;
+    }
+
+    public <T> T stage(String stage, Supplier<T> work) {
+        StageMetrics metrics = stageMetrics(stage);
+        long heapUsedBefore = heapUsed();
+        long gcCountBefore = gcCount();
+        long gcTimeBefore = gcTimeMillis();
+        long start = System.nanoTime();
+        try {
+            return work.get();
+        } finally {
+            record(stage, metrics, System.nanoTime() - start, heapUsedBefore, gcCountBefore, gcTimeBefore);
+        }
+    }
+
+    public void stage(String stage, Runnable work) {
+        stage(stage, () -> {
+            work.run();
+            return null;
+        });
+    }
+
+    /**
+     * Record the stage over the consumption of the lazy stream: the time spent taking its elements,
+     * excluding the time spent by the consumer on each element. Recorded once the stream is exhausted or closed.
+     */
+    public <T> Stream<T> lazyStage(String stage, Stream<T> lazy) {
+        LazyStage lazyStage = new LazyStage(stage);
+        Spliterator<T> spliterator = lazy.spliterator();
+        return StreamSupport.stream(new Spliterators.AbstractSpliterator<T>(
+                        spliterator.estimateSize(), spliterator.characteristics()) {
+                    @Override
+                    public boolean tryAdvance(Consumer<? super T> action) {
+                        long start = System.nanoTime();
+                        boolean advanced = spliterator.tryAdvance(element -> {
+                            lazyStage.add(System.nanoTime() - start);
+                            action.accept(element);
+                        });
+                        if (!advanced) {
+                            lazyStage.add(System.nanoTime() - start);
+                            lazyStage.finish();
+                        }
+                        return advanced;
+                    }
+                }, false)
+                .onClose(lazyStage::finish)
+                .onClose(lazy::close);
+    }
+
+    /**
+     * Record the stage over the consumption of the lazy input stream: the time spent in its reads.
+     * Recorded once the end of the stream is reached or it is closed.
+     */
+    public InputStream lazyStage(String stage, InputStream lazy) {
+        LazyStage lazyStage = new LazyStage(stage);
+        return new FilterInputStream(lazy) {
+            @Override
+            public int read() throws IOException {
+                long start = System.nanoTime();
+                int b = super.read();
+                lazyStage.add(System.nanoTime() - start);
+                if (b == -1) {
+                    lazyStage.finish();
+                }
+                return b;
+            }
+
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                long start = System.nanoTime();
+                int n = super.read(b, off, len);
+                lazyStage.add(System.nanoTime() - start);
+                if (n == -1) {
+                    lazyStage.finish();
+                }
+                return n;
+            }
+
+            @Override
+            public long skip(long n) throws IOException {
+                long start = System.nanoTime();
+                long skipped = super.skip(n);
+                lazyStage.add(System.nanoTime() - start);
+                return skipped;
+            }
+
+            @Override
+            public void close() throws IOException {
+                try {
+                    super.close();
+                } finally {
+                    lazyStage.finish();
+                }
+            }
+        };
+    }
+
+    public InputStream countBytesIn(String stage, InputStream inputStream) {
+        return countBytes(stage, "in", stageMetrics(stage).bytesIn, inputStream);
+    }
+
+    public InputStream countBytesOut(String stage, InputStream inputStream) {
+        return countBytes(stage, "out", stageMetrics(stage).bytesOut, inputStream);
+    }
+
+    public <T> Stream<T> countDocuments(String stage, Stream<T> documents) {
+        StageMetrics metrics = stageMetrics(stage);
+        Counter counter = Counter.builder(PREFIX + "documents").tag("stage", stage).register(meterRegistry);
+        return documents.peek(document -> {
+            metrics.documents.incrementAndGet();
+            counter.increment();
+        });
+    }
+
+    /**
+     * A string pool for the run, counting its hits and misses as bahamut.export.string.pool tagged with the result.
+     */
+    public StringPool stringPool() {
+        Counter hits = Counter.builder("bahamut.export.string.pool").tag("result", "hit").register(meterRegistry);
+        Counter misses = Counter.builder("bahamut.export.string.pool").tag("result", "miss").register(meterRegistry);
+        return new StringPool(hits::increment, misses::increment);
+    }
+
+    /**
+     * Report of all stages recorded since the previous report.
+     */
+    public synchronized RunReport report(String filename) {
+        Instant finished = Instant.now();
+        Instant runStarted = started != null ? started : finished;
+        List<StageReport> stageReports = stages.entrySet().stream()
+                .map(entry -> entry.getValue().report(entry.getKey()))
+                .toList();
+        stages.clear();
+        started = null;
+        return new RunReport(filename, runStarted.toString(), finished.toString(),
+                Duration.between(runStarted, finished).toMillis(), stageReports);
+    }
+
+    private void record(String stage, StageMetrics metrics, long durationNanos,
+                        long heapUsedBefore, long gcCountBefore, long gcTimeBefore) {
+        long heapUsedAfter = heapUsed();
+        metrics.record(durationNanos, heapUsedBefore, heapUsedAfter,
+                gcCount() - gcCountBefore, gcTimeMillis() - gcTimeBefore);
+
+        Timer.builder(PREFIX + "duration").tag("stage", stage)
+                .register(meterRegistry).record(durationNanos, TimeUnit.NANOSECONDS);
+        DistributionSummary.builder(PREFIX + "heap.delta").tag("stage", stage).baseUnit("bytes")
+                .register(meterRegistry).record(heapUsedAfter - heapUsedBefore);
+    }
+
+    private InputStream countBytes(String stage, String direction, AtomicLong bytes, InputStream inputStream) {
+        Counter counter = Counter.builder(PREFIX + "bytes").tag("stage", stage).tag("direction", direction)
+                .baseUnit("bytes").register(meterRegistry);
+        return new CountingInputStream(inputStream, n -> {
+            bytes.addAndGet(n);
+            counter.increment(n);
+        });
+    }
+
+    private synchronized StageMetrics stageMetrics(String stage) {
+        if (started == null) {
+            started = Instant.now();
+        }
+        return stages.computeIfAbsent(stage, name -> {
+            Gauge.builder(PREFIX + "documents.per.second", this, exportMetrics -> exportMetrics.documentsPerSecond(name))
+                    .tag("stage", name)
+                    .register(meterRegistry);
+            return new StageMetrics();
+        });
+    }
+
+    private synchronized double documentsPerSecond(String stage) {
+        StageMetrics metrics = stages.get(stage);
+        return metrics != null ? metrics.documentsPerSecond() : 0;
+    }
+
+    private static long heapUsed() {
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private static long gcCount() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionCount).filter(count -> count > 0).sum();
+    }
+
+    private static long gcTimeMillis() {
+        return ManagementFactory.getGarbageCollectorMXBeans().stream()
+                .mapToLong(GarbageCollectorMXBean::getCollectionTime).filter(time -> time > 0).sum();
+    }
+
+    /**
+     * The time spent in a lazy stage, added up as the stream is consumed, with the heap and GC state
+     * from the time the stream was created.
+     */
+    private class LazyStage {
+        private final String stage;
+        private final StageMetrics metrics;
+        private final long heapUsedBefore = heapUsed();
+        private final long gcCountBefore = gcCount();
+        private final long gcTimeBefore = gcTimeMillis();
+        private final AtomicLong durationNanos = new AtomicLong();
+        private final AtomicBoolean finished = new AtomicBoolean();
+
+        private LazyStage(String stage) {
+            this.stage = stage;
+            this.metrics = stageMetrics(stage);
+        }
+
+        private void add(long nanos) {
+            durationNanos.addAndGet(nanos);
+        }
+
+        private void finish() {
+            if (finished.compareAndSet(false, true)) {
+                record(stage, metrics, durationNanos.get(), heapUsedBefore, gcCountBefore, gcTimeBefore);
+            }
+        }
+    }
+
+    private static class StageMetrics {
+        private final AtomicLong documents = new AtomicLong();
+        private final AtomicLong bytesIn = new AtomicLong();
+        private final AtomicLong bytesOut = new AtomicLong();
+        private long durationNanos;
+        private long heapUsedBefore;
+        private long heapUsedAfter;
+        private long gcCount;
+        private long gcTimeMillis;
+
+        private synchronized void record(long durationNanos, long heapUsedBefore, long heapUsedAfter,
+                                         long gcCount, long gcTimeMillis) {
+            if (this.durationNanos == 0) {
+                this.heapUsedBefore = heapUsedBefore;
+            }
+            this.durationNanos += durationNanos;
+            this.heapUsedAfter = heapUsedAfter;
+            this.gcCount += gcCount;
+            this.gcTimeMillis += gcTimeMillis;
+        }
+
+        private synchronized double documentsPerSecond() {
+            return durationNanos > 0 ? documents.get() / (durationNanos / 1e9) : 0;
+        }
+
+        private synchronized StageReport report(String stage) {
+            return new StageReport(stage, TimeUnit.NANOSECONDS.toMillis(durationNanos), documents.get(),
+                    documentsPerSecond(), bytesIn.get(), bytesOut.get(),
+                    heapUsedBefore, heapUsedAfter, gcCount, gcTimeMillis);
+        }
+    }
+}
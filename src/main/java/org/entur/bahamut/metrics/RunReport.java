@@ -0,0 +1,14 @@
+package org.entur.bahamut.metrics;
+
+import java.util.List;
+
+/**
+ * Cost of an export run, per stage, to be trended night over night.
+ */
+public record RunReport(
+        String filename,
+        String started,
+        String finished,
+        long durationMillis,
+        List<StageReport> stages) {
+}
@@ -0,0 +1,17 @@
+package org.entur.bahamut.metrics;
+
+/**
+ * Cost of a single stage of an export run.
+ */
+public record StageReport(
+        String stage,
+        long durationMillis,
+        long documents,
+        double documentsPerSecond,
+        long bytesIn,
+        long bytesOut,
+        long heapUsedBeforeBytes,
+        long heapUsedAfterBytes,
+        long gcCount,
+        long gcTimeMillis) {
+}
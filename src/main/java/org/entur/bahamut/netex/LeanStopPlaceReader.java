@@ -0,0 +1,228 @@
+package org.entur.bahamut.netex;
+
+import jakarta.xml.bind.JAXBElement;
+import org.rutebanken.netex.model.*;
+
+import javax.xml.XMLConstants;
+import javax.xml.namespace.QName;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.math.BigDecimal;
+import java.time.LocalDateTime;
+import java.time.OffsetDateTime;
+import java.time.ZoneId;
+import java.time.format.DateTimeParseException;
+import java.util.function.Function;
+
+/**
+ * Hand written alternative to unmarshalling a StopPlace with JAXB, reading only the fields bahamut uses:
+ * id, version, keyList, ValidBetween, Name, Description, alternativeNames, Centroid, TopographicPlaceRef,
+ * ParentSiteRef, the stop type, transport mode and sub modes, Weighting, tariffZones and quays.
+ * Any other element, like quay details, accessibility assessments and equipment places, is skipped
+ * without being allocated. Quays are only kept as their ids, as only their presence is used.
+ */
+class LeanStopPlaceReader {
+
+    private static final String NETEX_NAMESPACE = "http://www.netex.org.uk/netex";
+
+    private LeanStopPlaceReader() {
+    }
+
+    /**
+     * Read the StopPlace the reader is positioned at, leaving the reader at its end element.
+     */
+    static StopPlace read(XMLStreamReader reader) throws XMLStreamException {
+        var stopPlace = new StopPlace()
+                .withId(reader.getAttributeValue(null, "id"))
+                .withVersion(reader.getAttributeValue(null, "version"));
+
+        forEachChild(reader, name -> {
+            switch (name) {
+                case "keyList" -> stopPlace.withKeyList(readKeyList(reader));
+                case "ValidBetween" -> stopPlace.withValidBetween(readValidBetween(reader));
+                case "Name" -> stopPlace.withName(readMultilingualString(reader));
+                case "Description" -> stopPlace.withDescription(readMultilingualString(reader));
+                case "alternativeNames" -> stopPlace.withAlternativeNames(readAlternativeNames(reader));
+                case "Centroid" -> stopPlace.withCentroid(readCentroid(reader));
+                case "TopographicPlaceRef" -> stopPlace.withTopographicPlaceRef(new TopographicPlaceRefStructure()
+                        .withRef(readRef(reader)));
+                case "ParentSiteRef" -> {
+                    String version = reader.getAttributeValue(null, "version");
+                    stopPlace.withParentSiteRef(new SiteRefStructure().withRef(readRef(reader)).withVersion(version));
+                }
+                case "TransportMode" -> stopPlace.withTransportMode(readEnum(reader, AllVehicleModesOfTransportEnumeration::fromValue));
+                case "AirSubmode" -> stopPlace.withAirSubmode(readEnum(reader, AirSubmodeEnumeration::fromValue));
+                case "BusSubmode" -> stopPlace.withBusSubmode(readEnum(reader, BusSubmodeEnumeration::fromValue));
+                case "WaterSubmode" -> stopPlace.withWaterSubmode(readEnum(reader, WaterSubmodeEnumeration::fromValue));
+                case "RailSubmode" -> stopPlace.withRailSubmode(readEnum(reader, RailSubmodeEnumeration::fromValue));
+                case "MetroSubmode" -> stopPlace.withMetroSubmode(readEnum(reader, MetroSubmodeEnumeration::fromValue));
+                case "TramSubmode" -> stopPlace.withTramSubmode(readEnum(reader, TramSubmodeEnumeration::fromValue));
+                case "StopPlaceType" -> stopPlace.withStopPlaceType(readEnum(reader, StopTypeEnumeration::fromValue));
+                case "Weighting" -> stopPlace.withWeighting(readEnum(reader, InterchangeWeightingEnumeration::fromValue));
+                case "tariffZones" -> stopPlace.withTariffZones(readTariffZones(reader));
+                case "quays" -> stopPlace.withQuays(readQuays(reader));
+                default -> skipElement(reader);
+            }
+        });
+        return stopPlace;
+    }
+
+    private static KeyListStructure readKeyList(XMLStreamReader reader) throws XMLStreamException {
+        var keyList = new KeyListStructure();
+        forEachChild(reader, name -> {
+            if ("KeyValue".equals(name)) {
+                var keyValue = new KeyValueStructure();
+                forEachChild(reader, keyValueName -> {
+                    switch (keyValueName) {
+                        case "Key" -> keyValue.withKey(reader.getElementText());
+                        case "Value" -> keyValue.withValue(reader.getElementText());
+                        default -> skipElement(reader);
+                    }
+                });
+                keyList.withKeyValue(keyValue);
+            } else {
+                skipElement(reader);
+            }
+        });
+        return keyList;
+    }
+
+    private static ValidBetween readValidBetween(XMLStreamReader reader) throws XMLStreamException {
+        var validBetween = new ValidBetween();
+        forEachChild(reader, name -> {
+            switch (name) {
+                case "FromDate" -> validBetween.withFromDate(parseDateTime(reader.getElementText()));
+                case "ToDate" -> validBetween.withToDate(parseDateTime(reader.getElementText()));
+                default -> skipElement(reader);
+            }
+        });
+        return validBetween;
+    }
+
+    private static MultilingualString readMultilingualString(XMLStreamReader reader) throws XMLStreamException {
+        String lang = reader.getAttributeValue(null, "lang");
+        if (lang == null) {
+            lang = reader.getAttributeValue(XMLConstants.XML_NS_URI, "lang");
+        }
+        return new MultilingualString().withLang(lang).withValue(reader.getElementText());
+    }
+
+    private static AlternativeNames_RelStructure readAlternativeNames(XMLStreamReader reader) throws XMLStreamException {
+        var alternativeNames = new AlternativeNames_RelStructure();
+        forEachChild(reader, name -> {
+            if ("AlternativeName".equals(name)) {
+                var alternativeName = new AlternativeName();
+                forEachChild(reader, alternativeNameName -> {
+                    switch (alternativeNameName) {
+                        case "NameType" -> alternativeName.withNameType(readEnum(reader, NameTypeEnumeration::fromValue));
+                        case "Name" -> alternativeName.withName(readMultilingualString(reader));
+                        default -> skipElement(reader);
+                    }
+                });
+                alternativeNames.withAlternativeName(alternativeName);
+            } else {
+                skipElement(reader);
+            }
+        });
+        return alternativeNames;
+    }
+
+    private static SimplePoint_VersionStructure readCentroid(XMLStreamReader reader) throws XMLStreamException {
+        var centroid = new SimplePoint_VersionStructure();
+        forEachChild(reader, name -> {
+            if ("Location".equals(name)) {
+                var location = new LocationStructure();
+                forEachChild(reader, locationName -> {
+                    switch (locationName) {
+                        case "Longitude" -> location.withLongitude(new BigDecimal(reader.getElementText().trim()));
+                        case "Latitude" -> location.withLatitude(new BigDecimal(reader.getElementText().trim()));
+                        default -> skipElement(reader);
+                    }
+                });
+                centroid.withLocation(location);
+            } else {
+                skipElement(reader);
+            }
+        });
+        return centroid;
+    }
+
+    private static TariffZoneRefs_RelStructure readTariffZones(XMLStreamReader reader) throws XMLStreamException {
+        var tariffZones = new TariffZoneRefs_RelStructure();
+        forEachChild(reader, name -> {
+            if ("TariffZoneRef".equals(name)) {
+                tariffZones.withTariffZoneRef(new TariffZoneRef().withRef(readRef(reader)));
+            } else {
+                skipElement(reader);
+            }
+        });
+        return tariffZones;
+    }
+
+    private static Quays_RelStructure readQuays(XMLStreamReader reader) throws XMLStreamException {
+        var quays = new Quays_RelStructure();
+        forEachChild(reader, name -> {
+            String id = reader.getAttributeValue(null, "Quay".equals(name) ? "id" : "ref");
+            skipElement(reader);
+            quays.withQuayRefOrQuay(new JAXBElement<>(new QName(NETEX_NAMESPACE, "Quay"), Quay.class, new Quay().withId(id)));
+        });
+        return quays;
+    }
+
+    private static String readRef(XMLStreamReader reader) throws XMLStreamException {
+        String ref = reader.getAttributeValue(null, "ref");
+        skipElement(reader);
+        return ref;
+    }
+
+    /**
+     * Unknown values are read as null, as JAXB does.
+     */
+    private static <T extends Enum<T>> T readEnum(XMLStreamReader reader, Function<String, T> fromValue) throws XMLStreamException {
+        try {
+            return fromValue.apply(reader.getElementText().trim());
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Dates with an offset are converted to local time in the default time zone, as the netex model adapter does.
+     */
+    private static LocalDateTime parseDateTime(String value) {
+        String dateTime = value.trim();
+        try {
+            return LocalDateTime.parse(dateTime);
+        } catch (DateTimeParseException e) {
+            return OffsetDateTime.parse(dateTime).atZoneSameInstant(ZoneId.systemDefault()).toLocalDateTime();
+        }
+    }
+
+    /**
+     * Call the handler for each child element of the current element, with the reader at the child start element.
+     * The handler must leave the reader at the child end element. Leaves the reader at the current end element.
+     */
+    private static void forEachChild(XMLStreamReader reader, ChildHandler handler) throws XMLStreamException {
+        while (reader.nextTag() == XMLStreamConstants.START_ELEMENT) {
+            handler.handle(reader.getLocalName());
+        }
+    }
+
+    private static void skipElement(XMLStreamReader reader) throws XMLStreamException {
+        int depth = 1;
+        while (depth > 0) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT) {
+                depth++;
+            } else if (event == XMLStreamConstants.END_ELEMENT) {
+                depth--;
+            }
+        }
+    }
+
+    @FunctionalInterface
+    private interface ChildHandler {
+        void handle(String name) throws XMLStreamException;
+    }
+}
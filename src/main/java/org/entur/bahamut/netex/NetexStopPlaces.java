@@ -0,0 +1,36 @@
+package org.entur.bahamut.netex;
+
+import org.entur.netex.index.api.NetexEntitiesIndex;
+import org.rutebanken.netex.model.GroupOfStopPlaces;
+import org.rutebanken.netex.model.SiteFrame;
+import org.rutebanken.netex.model.StopPlace;
+
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * The stop places and group of stop places read from one Netex file.
+ */
+public record NetexStopPlaces(List<StopPlace> stopPlaces, List<GroupOfStopPlaces> groupOfStopPlaces) {
+
+    public static NetexStopPlaces of(NetexEntitiesIndex netexEntitiesIndex) {
+        return of(netexEntitiesIndex.getSiteFrames());
+    }
+
+    /**
+     * The stop places and group of stop places of all the SiteFrames, in SiteFrame order.
+     */
+    public static NetexStopPlaces of(Collection<SiteFrame> siteFrames) {
+        List<StopPlace> stopPlaces = siteFrames.stream()
+                .map(siteFrame -> siteFrame.getStopPlaces().getStopPlace())
+                .flatMap(Collection::stream)
+                .toList();
+
+        List<GroupOfStopPlaces> groupOfStopPlaces = siteFrames.stream()
+                .map(siteFrame -> siteFrame.getGroupsOfStopPlaces().getGroupOfStopPlaces())
+                .flatMap(Collection::stream)
+                .toList();
+
+        return new NetexStopPlaces(stopPlaces, groupOfStopPlaces);
+    }
+}
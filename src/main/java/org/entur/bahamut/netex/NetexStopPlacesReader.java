@@ -0,0 +1,93 @@
+package org.entur.bahamut.netex;
+
+import jakarta.xml.bind.JAXBContext;
+import jakarta.xml.bind.JAXBException;
+import jakarta.xml.bind.Unmarshaller;
+import org.rutebanken.netex.model.GroupOfStopPlaces;
+import org.rutebanken.netex.model.PublicationDeliveryStructure;
+import org.rutebanken.netex.model.StopPlace;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.InputStream;
+import java.util.function.Consumer;
+
+/**
+ * Streaming alternative to NetexParser, walking the NeTEx file with StAX and unmarshalling
+ * only the StopPlace and GroupOfStopPlaces elements, one element at a time.
+ * Nothing else in the publication delivery is kept in memory.
+ * <p>
+ * With bahamut.netex.lean, stop places are read by LeanStopPlaceReader instead of JAXB,
+ * with only the fields bahamut uses. As this reader is only used with bahamut.netex.streaming,
+ * bahamut.netex.lean has no effect without it.
+ */
+@Component
+public class NetexStopPlacesReader {
+
+    private static final Logger logger = LoggerFactory.getLogger(NetexStopPlacesReader.class);
+
+    private static final String STOP_PLACE = "StopPlace";
+    private static final String GROUP_OF_STOP_PLACES = "GroupOfStopPlaces";
+
+    private static final JAXBContext jaxbContext = createJaxbContext();
+
+    private final XMLInputFactory xmlInputFactory;
+    private final boolean lean;
+
+    public NetexStopPlacesReader(@Value("${bahamut.netex.lean:false}") boolean lean,
+                                 @Value("${bahamut.netex.streaming:false}") boolean streaming) {
+        if (lean && !streaming) {
+            logger.warn("bahamut.netex.lean is ignored, as stop places are only read lean with bahamut.netex.streaming");
+        }
+        this.lean = lean;
+        this.xmlInputFactory = XMLInputFactory.newFactory();
+        this.xmlInputFactory.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        this.xmlInputFactory.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    public void read(InputStream inputStream,
+                     Consumer<StopPlace> stopPlaceConsumer,
+                     Consumer<GroupOfStopPlaces> groupOfStopPlacesConsumer) {
+        try {
+            XMLStreamReader reader = xmlInputFactory.createXMLStreamReader(inputStream);
+            try {
+                Unmarshaller unmarshaller = jaxbContext.createUnmarshaller();
+                // Unmarshalling leaves the reader at the event right after the end element,
+                // so the reader is only advanced explicitly when nothing was unmarshalled.
+                while (reader.hasNext()) {
+                    if (isStartElement(reader, STOP_PLACE) && lean) {
+                        stopPlaceConsumer.accept(LeanStopPlaceReader.read(reader));
+                        reader.next();
+                    } else if (isStartElement(reader, STOP_PLACE)) {
+                        stopPlaceConsumer.accept(unmarshaller.unmarshal(reader, StopPlace.class).getValue());
+                    } else if (isStartElement(reader, GROUP_OF_STOP_PLACES)) {
+                        groupOfStopPlacesConsumer.accept(unmarshaller.unmarshal(reader, GroupOfStopPlaces.class).getValue());
+                    } else {
+                        reader.next();
+                    }
+                }
+            } finally {
+                reader.close();
+            }
+        } catch (XMLStreamException | JAXBException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static boolean isStartElement(XMLStreamReader reader, String localName) {
+        return reader.isStartElement() && localName.equals(reader.getLocalName());
+    }
+
+    private static JAXBContext createJaxbContext() {
+        try {
+            return JAXBContext.newInstance(PublicationDeliveryStructure.class);
+        } catch (JAXBException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
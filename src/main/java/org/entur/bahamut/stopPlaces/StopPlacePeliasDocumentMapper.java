@@ -1,8 +1,8 @@
 package org.entur.bahamut.stopPlaces;
 
+import org.entur.bahamut.OrderedParallelMapper;
 import org.entur.bahamut.data.BahamutData;
 import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchy;
-import org.entur.bahamut.stopPlaces.stopPlacePopularityCache.StopPlacesPopularityCache;
 import org.entur.geocoder.model.*;
 import org.rutebanken.netex.model.*;
 import org.slf4j.Logger;
@@ -14,9 +14,6 @@ import java.util.*;
 import java.util.concurrent.atomic.AtomicInteger;
 import java.util.stream.Stream;
 
-import static org.entur.bahamut.Utilities.filterUnique;
-import static org.entur.bahamut.stopPlaces.StopPlaceValidator.isValid;
-
 @Component
 public class StopPlacePeliasDocumentMapper {
 
@@ -26,11 +23,15 @@ public class StopPlacePeliasDocumentMapper {
     public static final String PARENT_STOP_PLACE_LAYER = "StopPlaceParent";
     public static final String CHILD_STOP_PLACE_LAYER = "StopPlaceChild";
 
+    private final OrderedParallelMapper orderedParallelMapper;
+
+    public StopPlacePeliasDocumentMapper(OrderedParallelMapper orderedParallelMapper) {
+        this.orderedParallelMapper = orderedParallelMapper;
+    }
+
     public Stream<PeliasDocument> toPeliasDocuments(BahamutData bahamutData) {
-        return bahamutData.stopPlaceHierarchies().stream()
-                .flatMap(stopPlaceHierarchy ->
-                        toPeliasDocumentsForNames(stopPlaceHierarchy,
-                                bahamutData.stopPlacesPopularityCache()))
+        return orderedParallelMapper.flatMap(bahamutData.stopPlaceHierarchies(),
+                        stopPlaceHierarchy -> toPeliasDocumentsForNames(stopPlaceHierarchy, bahamutData))
                 .filter(StopPlacePeliasDocumentMapper::isValidPeliasDocument);
     }
 
@@ -49,20 +50,26 @@ public class StopPlacePeliasDocumentMapper {
      * When support for this is ready this mapping should be refactored to produce
      * a single document per place hierarchy.
      */
-    public Stream<PeliasDocument> toPeliasDocumentsForNames(StopPlaceHierarchy placeHierarchy,
-                                                            StopPlacesPopularityCache stopPlacesPopularityCache) {
+    public Stream<PeliasDocument> toPeliasDocumentsForNames(StopPlaceHierarchy placeHierarchy, BahamutData bahamutData) {
         var place = placeHierarchy.place();
-        if (!isValid(place)) {
+        if (!bahamutData.validity().isValid(place.getId())) {
+            return Stream.empty();
+        }
+        List<MultilingualString> names = placeHierarchy.names();
+        if (names.isEmpty()) {
             return Stream.empty();
         }
+        var template = new StopPlacePeliasDocumentTemplate(placeHierarchy, bahamutData.stringPool());
+        var popularity = bahamutData.stopPlacesPopularityCache().getPopularity(place.getId());
+        var layer = getLayer(placeHierarchy);
         var cnt = new AtomicInteger();
 
-        return getNames(placeHierarchy).stream()
+        return names.stream()
                 .map(documentName -> createPeliasDocument(
-                        createId(place, cnt),
+                        PeliasId.of(createId(place, cnt)).withLayer(layer),
                         documentName,
-                        stopPlacesPopularityCache.getPopularity(place.getId()),
-                        placeHierarchy)
+                        popularity,
+                        template)
                 );
     }
 
@@ -71,57 +78,20 @@ public class StopPlacePeliasDocumentMapper {
         return stopPlace.getId() + idSuffix;
     }
 
-    private static PeliasDocument createPeliasDocument(String documentId,
+    /**
+     * Stamp out the document of one name from the template shared by all documents of the hierarchy.
+     */
+    private static PeliasDocument createPeliasDocument(PeliasId peliasId,
                                                        MultilingualString documentName,
                                                        Long documentPopularity,
-                                                       StopPlaceHierarchy placeHierarchy) {
-
-        PeliasId peliasId = PeliasId.of(documentId).withLayer(getLayer(placeHierarchy));
-
+                                                       StopPlacePeliasDocumentTemplate template) {
         return new StopPlacePeliasDocumentBuilder(peliasId)
                 .withDocumentName(documentName)
                 .withPopularity(documentPopularity)
-                .withStopPlaceHierarchy(placeHierarchy)
+                .withTemplate(template)
                 .build();
     }
 
-    private static List<MultilingualString> getNames(StopPlaceHierarchy placeHierarchy) {
-        List<MultilingualString> names = new ArrayList<>();
-
-        collectNames(placeHierarchy, names, true);
-        collectNames(placeHierarchy, names, false);
-
-        return filterUnique(names);
-    }
-
-    private static void collectNames(StopPlaceHierarchy placeHierarchy, List<MultilingualString> names, boolean up) {
-        StopPlace place = placeHierarchy.place();
-        if (place.getName() != null) {
-            names.add(place.getName());
-        }
-
-        if (place.getAlternativeNames() != null
-                && !CollectionUtils.isEmpty(place.getAlternativeNames().getAlternativeName())) {
-
-            place.getAlternativeNames().getAlternativeName().stream()
-                    .filter(alternativeName ->
-                            alternativeName.getName() != null
-                                    && (NameTypeEnumeration.LABEL.equals(alternativeName.getNameType())
-                                    || alternativeName.getName().getLang() != null)
-                    ).forEach(n -> names.add(n.getName()));
-        }
-
-        if (up) {
-            if (placeHierarchy.parent() != null) {
-                collectNames(placeHierarchy.parent(), names, up);
-            }
-        } else {
-            if (!CollectionUtils.isEmpty(placeHierarchy.children())) {
-                placeHierarchy.children().forEach(child -> collectNames(child, names, up));
-            }
-        }
-    }
-
     /**
      * Categorize multimodal stops with separate layers in order to be able to filter in queries.
      * <p>
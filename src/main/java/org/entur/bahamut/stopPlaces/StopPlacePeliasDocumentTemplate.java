@@ -0,0 +1,151 @@
+package org.entur.bahamut.stopPlaces;
+
+import org.apache.commons.lang3.StringUtils;
+import org.entur.bahamut.data.StringPool;
+import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchy;
+import org.entur.geocoder.model.*;
+import org.rutebanken.netex.model.AlternativeName;
+import org.rutebanken.netex.model.MultilingualString;
+import org.rutebanken.netex.model.StopPlace;
+import org.rutebanken.netex.model.VersionOfObjectRefStructure;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+
+import static org.entur.bahamut.stopPlaces.StopPlacePeliasDocumentBuilder.DEFAULT_LANGUAGE;
+import static org.entur.bahamut.stopPlaces.StopPlaceUtilities.findAlternativeNameLabels;
+import static org.entur.bahamut.stopPlaces.StopPlaceUtilities.findAlternativeNameTranslations;
+
+/**
+ * The part of the pelias documents of a stop place hierarchy that is the same for all its documents,
+ * one per name, computed once per hierarchy. Everything but the id, the default name and the popularity.
+ */
+public final class StopPlacePeliasDocumentTemplate {
+
+    private final List<MultilingualString> alternativeNames;
+    private final List<MultilingualString> alternativeAliases;
+    private final String defaultAlias;
+    private final List<String> categories;
+    private final GeoPoint centerPoint;
+    private final MultilingualString description;
+    private final List<String> tariffZones;
+    private final List<String> tariffZoneAuthorities;
+    private final String topographicPlaceRef;
+    private final String streetName;
+
+    public StopPlacePeliasDocumentTemplate(StopPlaceHierarchy placeHierarchy, StringPool stringPool) {
+        StopPlace place = placeHierarchy.place();
+        this.alternativeNames = names(findAlternativeNameTranslations(place));
+        this.alternativeAliases = names(findAlternativeNameLabels(placeHierarchy));
+        this.defaultAlias = defaultAlias(alternativeAliases);
+        this.categories = categories(placeHierarchy);
+        this.centerPoint = centerPoint(place);
+        this.description = description(place);
+        this.tariffZones = tariffZones(place);
+        // TODO: Trenger vi det?
+        // A bug in elasticsearch 2.3.4 used for pelias causes prefix queries for array values to fail,
+        // thus making it impossible to query by tariff zone prefixes.
+        // Instead, adding tariff zone authorities as a distinct indexed name.
+        this.tariffZoneAuthorities = tariffZones.stream().map(stringPool::internPrefix).distinct().toList();
+        this.topographicPlaceRef = place.getTopographicPlaceRef() != null ? place.getTopographicPlaceRef().getRef() : null;
+        // The Pelias APIs de-duper will throw away results with identical name, layer, parent and address.
+        // Setting unique ID in street part of address to avoid unique topographic places with identical
+        // names being de-duped.
+        // TODO: DO we need this ???
+        this.streetName = "NOT_AN_ADDRESS-" + place.getId();
+    }
+
+    /**
+     * Apply the template to the document, in the same order as the stop place was mapped to it before.
+     */
+    void applyTo(PeliasDocument peliasDocument) {
+        alternativeNames.forEach(name -> peliasDocument.addAlternativeName(name.getLang(), name.getValue()));
+        alternativeAliases.forEach(name -> peliasDocument.addAlternativeAlias(name.getLang(), name.getValue()));
+        if (defaultAlias != null) {
+            peliasDocument.setDefaultAlias(defaultAlias);
+        }
+        categories.forEach(peliasDocument::addCategory);
+        if (centerPoint != null) {
+            peliasDocument.setCenterPoint(centerPoint);
+        }
+        if (description != null) {
+            peliasDocument.addDescription(description.getLang(), description.getValue());
+        }
+        tariffZones.forEach(peliasDocument::addTariffZone);
+        tariffZoneAuthorities.forEach(peliasDocument::addTariffZoneAuthority);
+        if (topographicPlaceRef != null) {
+            peliasDocument.getParents().addOrReplaceParent(
+                    ParentType.UNKNOWN,
+                    PeliasId.of(topographicPlaceRef),
+                    topographicPlaceRef
+            );
+        }
+        peliasDocument.setAddressParts(new AddressParts(streetName));
+    }
+
+    /**
+     * Stop types of the place followed by those of all its descendants, depth first.
+     */
+    static List<String> categories(StopPlaceHierarchy placeHierarchy) {
+        List<String> categories = new ArrayList<>();
+        addCategories(placeHierarchy, categories);
+        return categories;
+    }
+
+    private static void addCategories(StopPlaceHierarchy placeHierarchy, List<String> categories) {
+        if (placeHierarchy.place().getStopPlaceType() != null) {
+            categories.add(placeHierarchy.place().getStopPlaceType().value());
+        }
+        placeHierarchy.children().forEach(child -> addCategories(child, categories));
+    }
+
+    private static List<MultilingualString> names(List<AlternativeName> alternativeNames) {
+        return alternativeNames.stream().map(AlternativeName::getName).toList();
+    }
+
+    /**
+     * The alias in the default language or, if none, the alias in the first language.
+     * The last alias of a language wins, as when the aliases are added to the document.
+     */
+    private static String defaultAlias(List<MultilingualString> alternativeAliases) {
+        if (alternativeAliases.isEmpty()) {
+            return null;
+        }
+        Map<String, String> aliasPerLanguage = new LinkedHashMap<>();
+        alternativeAliases.forEach(name -> aliasPerLanguage.put(name.getLang(), name.getValue()));
+        return Optional.ofNullable(aliasPerLanguage.get(DEFAULT_LANGUAGE))
+                .orElse(aliasPerLanguage.values().iterator().next());
+    }
+
+    private static GeoPoint centerPoint(StopPlace place) {
+        if (place.getCentroid() != null) {
+            var loc = place.getCentroid().getLocation();
+            return new GeoPoint(loc.getLatitude().doubleValue(), loc.getLongitude().doubleValue());
+        }
+        return null;
+    }
+
+    private static MultilingualString description(StopPlace place) {
+        if (place.getDescription() != null && !StringUtils.isEmpty(place.getDescription().getValue())) {
+            var lang = place.getDescription().getLang();
+            if (lang == null) {
+                lang = DEFAULT_LANGUAGE;
+            }
+            return new MultilingualString().withLang(lang).withValue(place.getDescription().getValue());
+        }
+        return null;
+    }
+
+    private static List<String> tariffZones(StopPlace place) {
+        if (place.getTariffZones() != null && place.getTariffZones().getTariffZoneRef() != null) {
+            return place.getTariffZones().getTariffZoneRef().stream()
+                    .map(VersionOfObjectRefStructure::getRef)
+                    .toList();
+        }
+        return Collections.emptyList();
+    }
+}
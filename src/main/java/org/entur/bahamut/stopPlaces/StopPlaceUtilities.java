@@ -16,13 +16,15 @@ public class StopPlaceUtilities {
         return findAlternativeNameForNameType(place, NameTypeEnumeration.TRANSLATION);
     }
 
+    /**
+     * Labels on the current place or, if none, on the closest parent with labels.
+     */
     public static List<AlternativeName> findAlternativeNameLabels(StopPlaceHierarchy placeHierarchy) {
-        StopPlace place = placeHierarchy.place();
-        List<AlternativeName> alternativeNames = findAlternativeNameForNameType(place, NameTypeEnumeration.LABEL);
-        if (alternativeNames.isEmpty() && placeHierarchy.parent() != null) {
-            return findAlternativeNameLabels(placeHierarchy.parent());
-        }
-        return alternativeNames;
+        return placeHierarchy.alternativeNameLabels();
+    }
+
+    public static List<AlternativeName> findAlternativeNameLabels(StopPlace place) {
+        return findAlternativeNameForNameType(place, NameTypeEnumeration.LABEL);
     }
 
     private static List<AlternativeName> findAlternativeNameForNameType(StopPlace place, NameTypeEnumeration nameType) {
@@ -42,12 +44,6 @@ public class StopPlaceUtilities {
      *  It was used to set the DisplayName which is later copied to DefaultName in Entur-PeliasApi.
      */
     public static MultilingualString getClosestAvailableName(StopPlaceHierarchy placeHierarchy) {
-        if (placeHierarchy.place().getName() != null) {
-            return placeHierarchy.place().getName();
-        }
-        if (placeHierarchy.parent() != null) {
-            return getClosestAvailableName(placeHierarchy.parent());
-        }
-        return null;
+        return placeHierarchy.closestAvailableName();
     }
 }
@@ -1,6 +1,6 @@
 package org.entur.bahamut.stopPlaces;
 
-import org.entur.bahamut.Utilities;
+import org.entur.bahamut.data.ValidityEvaluator;
 import org.rutebanken.netex.model.BusSubmodeEnumeration;
 import org.rutebanken.netex.model.StopPlace;
 import org.rutebanken.netex.model.VehicleModeEnumeration;
@@ -10,7 +10,7 @@ public class StopPlaceValidator {
 
     private static final String KEY_IS_PARENT_STOP_PLACE = "IS_PARENT_STOP_PLACE";
 
-    public static boolean isValid(StopPlace place) {
+    public static boolean isValid(StopPlace place, ValidityEvaluator validityEvaluator) {
         // Ignore rail replacement bus
         if (VehicleModeEnumeration.BUS.equals(place.getTransportMode())
                 && BusSubmodeEnumeration.RAIL_REPLACEMENT_BUS.equals(place.getBusSubmode())) {
@@ -22,8 +22,7 @@ public class StopPlaceValidator {
             return false;
         }
 
-        return CollectionUtils.isEmpty(place.getValidBetween())
-                || place.getValidBetween().stream().anyMatch(Utilities::isValidNow);
+        return validityEvaluator.isValid(place.getValidBetween());
     }
 
     private static boolean isQuayLessNonParentStop(StopPlace place) {
@@ -16,7 +16,6 @@
 
 package org.entur.bahamut.stopPlaces.boostConfiguration;
 
-import org.apache.commons.lang3.tuple.Pair;
 import org.entur.bahamut.stopPlaces.StopTypesSubMode;
 import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchy;
 import org.rutebanken.netex.model.*;
@@ -24,15 +23,29 @@ import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.beans.factory.annotation.Value;
 import org.springframework.stereotype.Component;
 
-import java.util.*;
-import java.util.stream.Collectors;
+import java.util.Arrays;
+import java.util.DoubleSummaryStatistics;
+import java.util.Map;
 
+/**
+ * The boost configuration is compiled at startup into arrays indexed by enum ordinals,
+ * so scoring a stop place hierarchy needs no map lookups and no intermediate collections.
+ */
 @Component
 public class StopPlaceBoostConfiguration {
 
     private static final String ALL_TYPES = "*";
-    private final Map<StopTypeEnumeration, StopTypeBoostConfig> stopTypeFactorMap = new HashMap<>();
-    private final Map<InterchangeWeightingEnumeration, Double> interchangeFactorMap = new HashMap<>();
+    private static final int NO_SUB_MODE = 0;
+
+    /**
+     * Factor per stop type ordinal and sub mode, where column 0 is for no sub mode and
+     * column ordinal + 1 for the sub mode enum of the stop type. Null rows are not configured.
+     */
+    private final double[][] stopTypeFactors = new double[StopTypeEnumeration.values().length][];
+    /**
+     * Factor per interchange weighting ordinal, NaN when not configured.
+     */
+    private final double[] interchangeFactors = new double[InterchangeWeightingEnumeration.values().length];
     private final long defaultValue;
 
     @Autowired
@@ -42,6 +55,7 @@ public class StopPlaceBoostConfiguration {
 
         this.defaultValue = input.defaultValue;
 
+        Arrays.fill(interchangeFactors, Double.NaN);
         if (input.interchangeFactors != null) {
             initiateInterchangeFactors(input.interchangeFactors);
         }
@@ -54,28 +68,40 @@ public class StopPlaceBoostConfiguration {
     public long getPopularity(StopPlaceHierarchy placeHierarchy) {
         long popularity = defaultValue;
 
-        double stopTypeAndSubModeFactor = StopTypesSubMode.getStopTypeAndSubMode(placeHierarchy).stream()
-                .collect(Collectors.summarizingDouble(stopTypeAndSubMode ->
-                        getStopTypeAndSubModeFactor(stopTypeAndSubMode.getLeft(), stopTypeAndSubMode.getRight())))
-                .getSum();
+        // DoubleSummaryStatistics gives the same compensated sum as the summarizingDouble collector used before.
+        DoubleSummaryStatistics stopTypeAndSubModeFactors = new DoubleSummaryStatistics();
+        addStopTypeAndSubModeFactors(placeHierarchy, stopTypeAndSubModeFactors);
+        double stopTypeAndSubModeFactor = stopTypeAndSubModeFactors.getSum();
 
         if (stopTypeAndSubModeFactor > 0) {
             popularity *= stopTypeAndSubModeFactor;
         }
 
-        Double interchangeFactor = interchangeFactorMap.get(placeHierarchy.place().getWeighting());
-        if (interchangeFactor != null) {
-            popularity *= interchangeFactor;
+        InterchangeWeightingEnumeration weighting = placeHierarchy.place().getWeighting();
+        if (weighting != null && !Double.isNaN(interchangeFactors[weighting.ordinal()])) {
+            popularity *= interchangeFactors[weighting.ordinal()];
         }
 
         return popularity;
     }
 
+    /**
+     * Adds the factor of the place and all its descendants, depth first with the place before its children.
+     */
+    private void addStopTypeAndSubModeFactors(StopPlaceHierarchy placeHierarchy, DoubleSummaryStatistics factors) {
+        StopPlace stopPlace = placeHierarchy.place();
+        factors.accept(getStopTypeAndSubModeFactor(stopPlace.getStopPlaceType(), StopTypesSubMode.getStopSubMode(stopPlace)));
+
+        if (placeHierarchy.children() != null) {
+            for (StopPlaceHierarchy child : placeHierarchy.children()) {
+                addStopTypeAndSubModeFactors(child, factors);
+            }
+        }
+    }
+
     private void initiateInterchangeFactors(Map<String, Double> interchangeFactors) {
         interchangeFactors.forEach((interchangeType, factor) ->
-                interchangeFactorMap.put(
-                        InterchangeWeightingEnumeration.fromValue(interchangeType),
-                        factor)
+                this.interchangeFactors[InterchangeWeightingEnumeration.fromValue(interchangeType).ordinal()] = factor
         );
     }
 
@@ -85,29 +111,45 @@ public class StopPlaceBoostConfiguration {
             StopTypeEnumeration stopType = StopTypeEnumeration.fromValue(stopTypeConfig.getKey());
             Map<String, Double> inputFactorsPerSubMode = stopTypeConfig.getValue();
 
-            StopTypeBoostConfig stopTypeBoostConfig =
-                    new StopTypeBoostConfig(inputFactorsPerSubMode.getOrDefault(ALL_TYPES, 1.0));
-            stopTypeFactorMap.put(stopType, stopTypeBoostConfig);
-
-            inputFactorsPerSubMode.remove(ALL_TYPES);
-            inputFactorsPerSubMode
-                    .forEach((subModeString, factor) ->
-                            stopTypeBoostConfig.factorPerSubMode().put(
-                                    toSubModeEnum(stopType, subModeString),
-                                    factor
-                            )
-                    );
+            double[] factorPerSubMode = new double[subModeCount(stopType) + 1];
+            Arrays.fill(factorPerSubMode, inputFactorsPerSubMode.getOrDefault(ALL_TYPES, 1.0));
+            this.stopTypeFactors[stopType.ordinal()] = factorPerSubMode;
+
+            inputFactorsPerSubMode.forEach((subModeString, factor) -> {
+                if (!ALL_TYPES.equals(subModeString)) {
+                    factorPerSubMode[subModeIndex(toSubModeEnum(stopType, subModeString))] = factor;
+                }
+            });
         }
     }
 
     private double getStopTypeAndSubModeFactor(StopTypeEnumeration stopType, Enum subMode) {
-        StopTypeBoostConfig factorsPerSubMode = stopTypeFactorMap.get(stopType);
-        if (factorsPerSubMode != null) {
-            return factorsPerSubMode.getFactorForSubMode(subMode);
+        if (stopType == null) {
+            return 0;
+        }
+        double[] factorPerSubMode = stopTypeFactors[stopType.ordinal()];
+        if (factorPerSubMode != null) {
+            return factorPerSubMode[subModeIndex(subMode)];
         }
         return 0;
     }
 
+    private static int subModeIndex(Enum subMode) {
+        return subMode == null ? NO_SUB_MODE : subMode.ordinal() + 1;
+    }
+
+    private static int subModeCount(StopTypeEnumeration stopType) {
+        return switch (stopType) {
+            case AIRPORT -> AirSubmodeEnumeration.values().length;
+            case HARBOUR_PORT, FERRY_STOP, FERRY_PORT -> WaterSubmodeEnumeration.values().length;
+            case BUS_STATION, COACH_STATION, ONSTREET_BUS -> BusSubmodeEnumeration.values().length;
+            case RAIL_STATION -> RailSubmodeEnumeration.values().length;
+            case METRO_STATION -> MetroSubmodeEnumeration.values().length;
+            case ONSTREET_TRAM, TRAM_STATION -> TramSubmodeEnumeration.values().length;
+            default -> 0;
+        };
+    }
+
     private Enum toSubModeEnum(StopTypeEnumeration stopType, String subMode) {
         return switch (stopType) {
             case AIRPORT -> AirSubmodeEnumeration.fromValue(subMode);
@@ -119,17 +161,4 @@ public class StopPlaceBoostConfiguration {
             default -> null;
         };
     }
-
-    private record StopTypeBoostConfig(
-            double defaultFactor,
-            Map<Enum, Double> factorPerSubMode
-    ) {
-        public StopTypeBoostConfig(double defaultFactor) {
-            this(defaultFactor, new HashMap<>());
-        }
-
-        public Double getFactorForSubMode(Enum subMode) {
-            return factorPerSubMode.getOrDefault(subMode, defaultFactor);
-        }
-    }
-}
\ No newline at end of file
+}
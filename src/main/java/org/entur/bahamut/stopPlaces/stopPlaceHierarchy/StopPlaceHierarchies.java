@@ -1,49 +1,194 @@
 package org.entur.bahamut.stopPlaces.stopPlaceHierarchy;
 
+import org.entur.bahamut.data.IdIndex;
+import org.entur.bahamut.stopPlaces.StopPlaceUtilities;
+import org.rutebanken.netex.model.AlternativeName;
+import org.rutebanken.netex.model.MultilingualString;
+import org.rutebanken.netex.model.NameTypeEnumeration;
 import org.rutebanken.netex.model.StopPlace;
+import org.springframework.util.CollectionUtils;
 
 import java.util.*;
-import java.util.stream.Collectors;
+
+import static org.entur.bahamut.Utilities.filterUnique;
 
 public class StopPlaceHierarchies {
 
-    public static Set<StopPlaceHierarchy> create(List<StopPlace> places) {
-        var childStopPlacesByParentRef = places.stream()
-                .filter(sp -> sp.getParentSiteRef() != null)
-                .collect(Collectors.groupingBy(sp -> sp.getParentSiteRef().getRef()));
+    /**
+     * States of a stop place while resolving its parent chain, all 0 before it is visited.
+     */
+    private static final int VISITING = 1;
+    private static final int IN_HIERARCHY = 2;
+    private static final int ORPHAN = 3;
 
-        var stopPlaceHierarchies = places.stream()
-                .filter(sp -> sp.getParentSiteRef() == null)
-                .map(sp -> createHierarchyForStopPlace(sp, null, childStopPlacesByParentRef))
-                .toList();
+    /**
+     * Parent of a stop place whose ParentSiteRef is not among the stop places, kept apart from NO_PARENT.
+     */
+    private static final int UNRESOLVED_PARENT = -2;
 
-        var allStopPlaces = new HashSet<StopPlaceHierarchy>();
-        expandStopPlaceHierarchies(stopPlaceHierarchies, allStopPlaces);
-        return allStopPlaces;
-    }
+    /**
+     * Creates the hierarchies of the stop places, in the order of the stop places.
+     * Stop places whose parent chain does not end in a stop place without parent are left out,
+     * and so are stop places with an id already read, as the first occurrence of an id is kept.
+     */
+    public static StopPlaceHierarchyIndex create(List<StopPlace> stopPlaces) {
+        // The dense indices of the ids are positions in the stop places, so duplicates must not be among them.
+        IdIndex idIndex = new IdIndex(stopPlaces.size());
+        List<StopPlace> places = stopPlaces;
+        for (int i = 0; i < stopPlaces.size(); i++) {
+            boolean added = idIndex.add(stopPlaces.get(i).getId()) != IdIndex.NOT_FOUND;
+            if (!added && places == stopPlaces) {
+                places = new ArrayList<>(stopPlaces.subList(0, i));
+            } else if (added && places != stopPlaces) {
+                places.add(stopPlaces.get(i));
+            }
+        }
+        int size = places.size();
+
+        int[] parentOf = new int[size];
+        int unresolvedParentRefs = 0;
+        for (int i = 0; i < size; i++) {
+            StopPlace place = places.get(i);
+            parentOf[i] = place.getParentSiteRef() == null
+                    ? StopPlaceHierarchyIndex.NO_PARENT
+                    : parentIndex(idIndex, place.getParentSiteRef().getRef());
+            if (parentOf[i] == UNRESOLVED_PARENT) {
+                unresolvedParentRefs++;
+            }
+        }
+
+        int[] state = new int[size];
+        int[] positionOf = new int[size];
+        int positions = 0;
+        for (int i = 0; i < size; i++) {
+            if (resolve(i, parentOf, state) == IN_HIERARCHY) {
+                positionOf[i] = positions++;
+            }
+        }
 
-    private static void expandStopPlaceHierarchies(Collection<StopPlaceHierarchy> hierarchies,
-                                                   Set<StopPlaceHierarchy> target) {
-        if (hierarchies != null) {
-            for (var stopPlacePlaceHierarchy : hierarchies) {
-                target.add(stopPlacePlaceHierarchy);
-                expandStopPlaceHierarchies(stopPlacePlaceHierarchy.children(), target);
+        StopPlace[] hierarchyPlaces = new StopPlace[positions];
+        int[] parents = new int[positions];
+        int[] childOffsets = new int[positions + 1];
+        for (int i = 0; i < size; i++) {
+            if (state[i] == IN_HIERARCHY) {
+                int position = positionOf[i];
+                hierarchyPlaces[position] = places.get(i);
+                parents[position] = parentOf[i] == StopPlaceHierarchyIndex.NO_PARENT
+                        ? StopPlaceHierarchyIndex.NO_PARENT
+                        : positionOf[parentOf[i]];
+                if (parents[position] != StopPlaceHierarchyIndex.NO_PARENT) {
+                    childOffsets[parents[position] + 1]++;
+                }
             }
         }
+        for (int position = 0; position < positions; position++) {
+            childOffsets[position + 1] += childOffsets[position];
+        }
+        int[] childPositions = new int[childOffsets[positions]];
+        int[] nextChild = Arrays.copyOf(childOffsets, positions);
+        for (int position = 0; position < positions; position++) {
+            if (parents[position] != StopPlaceHierarchyIndex.NO_PARENT) {
+                childPositions[nextChild[parents[position]]++] = position;
+            }
+        }
+
+        StopPlaceHierarchyIndex index = new StopPlaceHierarchyIndex(
+                hierarchyPlaces, parents, childOffsets, childPositions,
+                size - positions, unresolvedParentRefs, stopPlaces.size() - size);
+        for (int position = 0; position < positions; position++) {
+            if (parents[position] == StopPlaceHierarchyIndex.NO_PARENT) {
+                aggregate(index, position, List.of());
+            }
+        }
+        return index;
+    }
+
+    private static int parentIndex(IdIndex idIndex, String parentRef) {
+        int parent = idIndex.indexOf(parentRef);
+        return parent == IdIndex.NOT_FOUND ? UNRESOLVED_PARENT : parent;
+    }
+
+    /**
+     * Whether the parent chain of the stop place ends in a stop place without parent.
+     * Chains with missing parents or cycles are orphans.
+     */
+    private static int resolve(int i, int[] parentOf, int[] state) {
+        if (state[i] == IN_HIERARCHY || state[i] == ORPHAN) {
+            return state[i];
+        }
+        if (state[i] == VISITING) {
+            return ORPHAN;
+        }
+        state[i] = VISITING;
+        int parent = parentOf[i];
+        if (parent == StopPlaceHierarchyIndex.NO_PARENT) {
+            state[i] = IN_HIERARCHY;
+        } else if (parent == UNRESOLVED_PARENT) {
+            state[i] = ORPHAN;
+        } else {
+            state[i] = resolve(parent, parentOf, state) == IN_HIERARCHY ? IN_HIERARCHY : ORPHAN;
+        }
+        return state[i];
+    }
+
+    /**
+     * Computes the aggregates of the hierarchy in one pass. What is inherited from the parent
+     * (names up, labels and closest name) is set before visiting the children, and what is collected from
+     * the children (names down) after.
+     *
+     * @return the names of the place and its descendants.
+     */
+    private static List<MultilingualString> aggregate(StopPlaceHierarchyIndex index,
+                                                      int position,
+                                                      List<MultilingualString> parentNamesUp) {
+        StopPlace stopPlace = index.places[position];
+        int parent = index.parents[position];
+
+        List<MultilingualString> ownNames = collectNames(stopPlace);
+        List<MultilingualString> namesUp = new ArrayList<>(ownNames);
+        namesUp.addAll(parentNamesUp);
+
+        List<AlternativeName> labels = StopPlaceUtilities.findAlternativeNameLabels(stopPlace);
+        index.alternativeNameLabels[position] = labels.isEmpty() && parent != StopPlaceHierarchyIndex.NO_PARENT
+                ? index.alternativeNameLabels[parent]
+                : labels;
+        index.closestAvailableNames[position] = stopPlace.getName() == null && parent != StopPlaceHierarchyIndex.NO_PARENT
+                ? index.closestAvailableNames[parent]
+                : stopPlace.getName();
+
+        List<MultilingualString> namesDown = new ArrayList<>(ownNames);
+
+        for (int i = index.childOffsets[position]; i < index.childOffsets[position + 1]; i++) {
+            int child = index.childPositions[i];
+            namesDown.addAll(aggregate(index, child, namesUp));
+        }
+
+        List<MultilingualString> names = new ArrayList<>(namesUp);
+        names.addAll(namesDown);
+        index.names[position] = filterUnique(names);
+
+        return namesDown;
     }
 
-    private static StopPlaceHierarchy createHierarchyForStopPlace(StopPlace stopPlace,
-                                                                  StopPlaceHierarchy parent,
-                                                                  Map<String, List<StopPlace>> childrenByParentIdMap) {
-        var children = childrenByParentIdMap.get(stopPlace.getId());
-        List<StopPlaceHierarchy> childHierarchies = new ArrayList<>();
-        StopPlaceHierarchy hierarchy = new StopPlaceHierarchy(stopPlace, parent);
-        if (children != null) {
-            childHierarchies = children.stream()
-                    .map(child -> createHierarchyForStopPlace(child, hierarchy, childrenByParentIdMap))
-                    .toList();
-        }
-        hierarchy.setChildren(childHierarchies);
-        return hierarchy;
+    /**
+     * Name and alternative names of the place that are used as document names.
+     */
+    private static List<MultilingualString> collectNames(StopPlace place) {
+        List<MultilingualString> names = new ArrayList<>();
+        if (place.getName() != null) {
+            names.add(place.getName());
+        }
+
+        if (place.getAlternativeNames() != null
+                && !CollectionUtils.isEmpty(place.getAlternativeNames().getAlternativeName())) {
+
+            place.getAlternativeNames().getAlternativeName().stream()
+                    .filter(alternativeName ->
+                            alternativeName.getName() != null
+                                    && (NameTypeEnumeration.LABEL.equals(alternativeName.getNameType())
+                                    || alternativeName.getName().getLang() != null)
+                    ).forEach(n -> names.add(n.getName()));
+        }
+        return names;
     }
 }
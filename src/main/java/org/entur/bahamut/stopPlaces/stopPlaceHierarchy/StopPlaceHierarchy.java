@@ -16,35 +16,68 @@
 
 package org.entur.bahamut.stopPlaces.stopPlaceHierarchy;
 
+import org.rutebanken.netex.model.AlternativeName;
+import org.rutebanken.netex.model.MultilingualString;
 import org.rutebanken.netex.model.StopPlace;
 
-import java.util.*;
+import java.util.List;
 
-public class StopPlaceHierarchy {
-
-    private final StopPlaceHierarchy parent;
-    private final StopPlace place;
-    private Collection<StopPlaceHierarchy> children;
+/**
+ * A stop place with its parent and children, as a view on a position in a StopPlaceHierarchyIndex.
+ * The aggregates over the hierarchy used for mapping (names, labels and closest name)
+ * are computed once by StopPlaceHierarchies when the index is created.
+ */
+public final class StopPlaceHierarchy {
 
+    private final StopPlaceHierarchyIndex index;
+    private final int position;
 
-    public StopPlaceHierarchy(StopPlace place, StopPlaceHierarchy parent) {
-        this.place = place;
-        this.parent = parent;
+    StopPlaceHierarchy(StopPlaceHierarchyIndex index, int position) {
+        this.index = index;
+        this.position = position;
     }
 
     public StopPlace place() {
-        return place;
+        return index.places[position];
+    }
+
+    public List<StopPlaceHierarchy> children() {
+        return index.children(position);
     }
 
-    public Collection<StopPlaceHierarchy> children() {
-        return children;
+    public StopPlaceHierarchy parent() {
+        int parent = index.parents[position];
+        return parent == StopPlaceHierarchyIndex.NO_PARENT ? null : index.get(parent);
     }
 
-    public void setChildren(Collection<StopPlaceHierarchy> children) {
-        this.children = children;
+    /**
+     * Unique names of the place and its ancestors, followed by those of the place and its descendants.
+     */
+    public List<MultilingualString> names() {
+        return index.names[position];
     }
 
-    public StopPlaceHierarchy parent() {
-        return parent;
+    /**
+     * Label alternative names of the place, or of the closest ancestor having any.
+     */
+    public List<AlternativeName> alternativeNameLabels() {
+        return index.alternativeNameLabels[position];
+    }
+
+    /**
+     * Name of the place, or of the closest ancestor with name set.
+     */
+    public MultilingualString closestAvailableName() {
+        return index.closestAvailableNames[position];
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        return o instanceof StopPlaceHierarchy other && other.index == index && other.position == position;
+    }
+
+    @Override
+    public int hashCode() {
+        return 31 * System.identityHashCode(index) + position;
     }
 }
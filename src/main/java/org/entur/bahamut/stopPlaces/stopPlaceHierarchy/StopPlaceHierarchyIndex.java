@@ -0,0 +1,101 @@
+package org.entur.bahamut.stopPlaces.stopPlaceHierarchy;
+
+import org.rutebanken.netex.model.AlternativeName;
+import org.rutebanken.netex.model.MultilingualString;
+import org.rutebanken.netex.model.StopPlace;
+
+import java.util.AbstractList;
+import java.util.List;
+import java.util.Objects;
+import java.util.RandomAccess;
+
+/**
+ * Stop place hierarchies kept as parallel arrays by position: the stop place, the position of its parent,
+ * and its children as a range in a shared array of child positions.
+ * Positions follow the order of the stop places in the Netex file, so iterating the index is reproducible.
+ * The StopPlaceHierarchy elements are views created on access.
+ */
+public final class StopPlaceHierarchyIndex extends AbstractList<StopPlaceHierarchy> implements RandomAccess {
+
+    static final int NO_PARENT = -1;
+
+    final StopPlace[] places;
+    final int[] parents;
+    /**
+     * Children of position p are childPositions[childOffsets[p]] until childPositions[childOffsets[p + 1]].
+     */
+    final int[] childOffsets;
+    final int[] childPositions;
+
+    final List<MultilingualString>[] names;
+    final List<AlternativeName>[] alternativeNameLabels;
+    final MultilingualString[] closestAvailableNames;
+
+    private final int orphans;
+    private final int unresolvedParentRefs;
+    private final int duplicates;
+
+    @SuppressWarnings("unchecked")
+    StopPlaceHierarchyIndex(StopPlace[] places, int[] parents, int[] childOffsets, int[] childPositions,
+                            int orphans, int unresolvedParentRefs, int duplicates) {
+        this.places = places;
+        this.orphans = orphans;
+        this.unresolvedParentRefs = unresolvedParentRefs;
+        this.duplicates = duplicates;
+        this.parents = parents;
+        this.childOffsets = childOffsets;
+        this.childPositions = childPositions;
+        this.names = new List[places.length];
+        this.alternativeNameLabels = new List[places.length];
+        this.closestAvailableNames = new MultilingualString[places.length];
+    }
+
+    @Override
+    public StopPlaceHierarchy get(int position) {
+        Objects.checkIndex(position, places.length);
+        return new StopPlaceHierarchy(this, position);
+    }
+
+    @Override
+    public int size() {
+        return places.length;
+    }
+
+    /**
+     * @return the number of stop places left out because their parent chain does not end in a root.
+     */
+    public int orphans() {
+        return orphans;
+    }
+
+    /**
+     * @return the number of ParentSiteRefs pointing to stop places that are not in the index input.
+     */
+    public int unresolvedParentRefs() {
+        return unresolvedParentRefs;
+    }
+
+    /**
+     * @return the number of stop places left out because a stop place with the same id came before them.
+     */
+    public int duplicates() {
+        return duplicates;
+    }
+
+    List<StopPlaceHierarchy> children(int position) {
+        int offset = childOffsets[position];
+        int count = childOffsets[position + 1] - offset;
+        return new AbstractList<>() {
+            @Override
+            public StopPlaceHierarchy get(int index) {
+                Objects.checkIndex(index, count);
+                return StopPlaceHierarchyIndex.this.get(childPositions[offset + index]);
+            }
+
+            @Override
+            public int size() {
+                return count;
+            }
+        };
+    }
+}
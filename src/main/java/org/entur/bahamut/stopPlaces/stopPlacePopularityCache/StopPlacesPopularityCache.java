@@ -1,12 +1,38 @@
 package org.entur.bahamut.stopPlaces.stopPlacePopularityCache;
 
-import java.util.Map;
+import org.entur.bahamut.data.IdIndex;
 
-public record StopPlacesPopularityCache(Map<String, Long> popularityPerStopPlaceId) {
+/**
+ * Popularity per stop place id, kept as a long[] indexed by an IdIndex
+ * instead of a Map<String, Long>, so lookups don't box and the cache stays small.
+ */
+public final class StopPlacesPopularityCache {
 
+    private final IdIndex idIndex;
+    private final long[] popularity;
+
+    StopPlacesPopularityCache(IdIndex idIndex, long[] popularity) {
+        this.idIndex = idIndex;
+        this.popularity = popularity;
+    }
+
+    /**
+     * @return the popularity of the stop place, or null if the stop place is not cached.
+     */
     public Long getPopularity(String stopPlaceId) {
-        return popularityPerStopPlaceId.get(stopPlaceId);
+        int index = idIndex.indexOf(stopPlaceId);
+        return index == IdIndex.NOT_FOUND ? null : popularity[index];
     }
-}
 
+    /**
+     * @return the popularity of the stop place, or defaultPopularity if the stop place is not cached.
+     */
+    public long getPopularity(String stopPlaceId, long defaultPopularity) {
+        int index = idIndex.indexOf(stopPlaceId);
+        return index == IdIndex.NOT_FOUND ? defaultPopularity : popularity[index];
+    }
 
+    public int size() {
+        return idIndex.size();
+    }
+}
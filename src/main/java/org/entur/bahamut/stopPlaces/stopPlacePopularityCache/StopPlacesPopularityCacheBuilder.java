@@ -1,13 +1,12 @@
 package org.entur.bahamut.stopPlaces.stopPlacePopularityCache;
 
+import org.entur.bahamut.data.IdIndex;
 import org.entur.bahamut.stopPlaces.boostConfiguration.StopPlaceBoostConfiguration;
 import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchy;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Component;
 
 import java.util.List;
-import java.util.Map;
-import java.util.stream.Collectors;
 
 @Component
 public class StopPlacesPopularityCacheBuilder {
@@ -20,12 +19,17 @@ public class StopPlacesPopularityCacheBuilder {
     }
 
     public StopPlacesPopularityCache build(List<StopPlaceHierarchy> stopPlaceHierarchies) {
-        Map<String, Long> collect = stopPlaceHierarchies.stream()
-                .collect(Collectors.toMap(
-                        stopPlaceHierarchy -> stopPlaceHierarchy.place().getId(),
-                        stopPlaceBoostConfiguration::getPopularity
-                ));
+        IdIndex idIndex = new IdIndex(stopPlaceHierarchies.size());
+        long[] popularity = new long[stopPlaceHierarchies.size()];
+        for (StopPlaceHierarchy stopPlaceHierarchy : stopPlaceHierarchies) {
+            String stopPlaceId = stopPlaceHierarchy.place().getId();
+            int index = idIndex.add(stopPlaceId);
+            if (index == IdIndex.NOT_FOUND) {
+                throw new IllegalStateException("Duplicate stop place id " + stopPlaceId);
+            }
+            popularity[index] = stopPlaceBoostConfiguration.getPopularity(stopPlaceHierarchy);
+        }
 
-        return new StopPlacesPopularityCache(collect);
+        return new StopPlacesPopularityCache(idIndex, popularity);
     }
 }
@@ -0,0 +1,120 @@
+#!/usr/bin/env bash
+#
+# Runs an export with the native image, and with the JVM jar if given, against a local disk blob store holding
+# a small NeTEx stop places file, checks that the export reached the haya bucket, and prints the wall clock
+# time and the max RSS of each run.
+#
+# Usage: e2e-local-disk.sh <native binary> [<executable jar>]
+
+set -euo pipefail
+
+NATIVE_BINARY=$1
+EXEC_JAR=${2:-}
+
+WORK=$(mktemp -d)
+trap 'rm -rf "$WORK"' EXIT
+BLOBS=$WORK/blobs
+
+mkdir -p "$WORK/netex" "$BLOBS/kakka/tiamat/geocoder"
+cat > "$WORK/netex/tiamat_export_geocoder.xml" <<'XML'
+<?xml version="1.0" encoding="UTF-8"?>
+<PublicationDelivery xmlns="http://www.netex.org.uk/netex" xmlns:gml="http://www.opengis.net/gml/3.2" version="1.0">
+  <PublicationTimestamp>2022-01-01T00:00:00</PublicationTimestamp>
+  <ParticipantRef>NSR</ParticipantRef>
+  <dataObjects>
+    <SiteFrame id="NSR:SiteFrame:1" version="1">
+      <groupsOfStopPlaces>
+        <GroupOfStopPlaces id="NSR:GroupOfStopPlaces:1" version="1">
+          <Name lang="nor">Sentrum</Name>
+          <members>
+            <StopPlaceRef ref="NSR:StopPlace:1"/>
+            <StopPlaceRef ref="NSR:StopPlace:2"/>
+          </members>
+        </GroupOfStopPlaces>
+      </groupsOfStopPlaces>
+      <stopPlaces>
+        <StopPlace id="NSR:StopPlace:1" version="1">
+          <Name lang="nor">Stasjonen</Name>
+          <Centroid>
+            <Location>
+              <Longitude>10.75</Longitude>
+              <Latitude>59.91</Latitude>
+            </Location>
+          </Centroid>
+          <StopPlaceType>railStation</StopPlaceType>
+          <quays>
+            <Quay id="NSR:Quay:1" version="1">
+              <Centroid>
+                <Location>
+                  <Longitude>10.75</Longitude>
+                  <Latitude>59.91</Latitude>
+                </Location>
+              </Centroid>
+            </Quay>
+          </quays>
+        </StopPlace>
+        <StopPlace id="NSR:StopPlace:2" version="1">
+          <Name lang="nor">Torget</Name>
+          <Centroid>
+            <Location>
+              <Longitude>10.74</Longitude>
+              <Latitude>59.91</Latitude>
+            </Location>
+          </Centroid>
+          <StopPlaceType>onstreetBus</StopPlaceType>
+          <quays>
+            <Quay id="NSR:Quay:2" version="1">
+              <Centroid>
+                <Location>
+                  <Longitude>10.74</Longitude>
+                  <Latitude>59.91</Latitude>
+                </Location>
+              </Centroid>
+            </Quay>
+          </quays>
+        </StopPlace>
+      </stopPlaces>
+    </SiteFrame>
+  </dataObjects>
+</PublicationDelivery>
+XML
+(cd "$WORK/netex" && jar cfM "$BLOBS/kakka/tiamat/geocoder/tiamat_export_geocoder_latest.zip" tiamat_export_geocoder.xml)
+
+run_export() {
+  local name=$1
+  shift
+  rm -rf "$BLOBS/bahamut" "$BLOBS/haya" "$WORK/workdir"
+  echo "Running the export with the $name build"
+  local args=(
+    --spring.profiles.active=local-disk-blobstore
+    --blobstore.local.folder="$BLOBS"
+    --blobstore.gcs.kakka.bucket.name=kakka
+    --blobstore.gcs.bahamut.bucket.name=bahamut
+    --blobstore.gcs.haya.bucket.name=haya
+    --bahamut.workdir="$WORK/workdir"
+    --spring.main.web-application-type=NONE
+  )
+  if [ -x /usr/bin/time ]; then
+    /usr/bin/time -f "$name: %e s, %M KB max RSS" "$@" "${args[@]}" > "$WORK/$name.log" 2>&1 \
+      || { cat "$WORK/$name.log"; exit 1; }
+    tail -n 1 "$WORK/$name.log"
+  else
+    time "$@" "${args[@]}" > "$WORK/$name.log" 2>&1 || { cat "$WORK/$name.log"; exit 1; }
+  fi
+
+  local export_file=$BLOBS/haya/import/bahamut_latest.zip
+  if [ ! -f "$export_file" ]; then
+    cat "$WORK/$name.log"
+    echo "$name: no export in $export_file"
+    exit 1
+  fi
+  rm -rf "$WORK/export" && mkdir -p "$WORK/export"
+  (cd "$WORK/export" && jar xf "$export_file")
+  grep -rq "NSR:StopPlace:1" "$WORK/export" || { echo "$name: NSR:StopPlace:1 missing from the export"; exit 1; }
+  grep -rq "NSR:GroupOfStopPlaces:1" "$WORK/export" || { echo "$name: NSR:GroupOfStopPlaces:1 missing from the export"; exit 1; }
+}
+
+run_export native "$NATIVE_BINARY"
+if [ -n "$EXEC_JAR" ]; then
+  run_export jvm java -jar "$EXEC_JAR"
+fi
@@ -0,0 +1,66 @@
+package org.entur.bahamut.nativeimage;
+
+import org.graalvm.nativeimage.hosted.Feature;
+import org.graalvm.nativeimage.hosted.RuntimeReflection;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Enumeration;
+import java.util.List;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+
+/**
+ * Registers the JAXB bound NeTEx model for reflection in the native image. The JAXBContext of
+ * PublicationDeliveryStructure reaches thousands of classes, in the NeTEx, GML and SIRI packages, which JAXB
+ * instantiates and populates reflectively, so they are found by scanning the model jars on the class path
+ * instead of being listed in reflect-config.json.
+ */
+public class NetexModelReflectionFeature implements Feature {
+
+    private static final List<String> MODEL_PACKAGES = List.of(
+            "org/rutebanken/netex/model/",
+            "org/rutebanken/util/",
+            "net/opengis/gml/_3/",
+            "uk/org/siri/");
+
+    @Override
+    public void beforeAnalysis(BeforeAnalysisAccess access) {
+        for (Path path : access.getApplicationClassPath()) {
+            if (Files.isRegularFile(path) && path.toString().endsWith(".jar")) {
+                for (String className : modelClassNames(path)) {
+                    Class<?> modelClass = access.findClassByName(className);
+                    if (modelClass != null) {
+                        register(modelClass);
+                    }
+                }
+            }
+        }
+    }
+
+    private static void register(Class<?> modelClass) {
+        RuntimeReflection.register(modelClass);
+        RuntimeReflection.register(modelClass.getDeclaredConstructors());
+        RuntimeReflection.register(modelClass.getDeclaredMethods());
+        RuntimeReflection.register(modelClass.getDeclaredFields());
+    }
+
+    private static List<String> modelClassNames(Path jar) {
+        try (JarFile jarFile = new JarFile(jar.toFile())) {
+            Enumeration<JarEntry> entries = jarFile.entries();
+            List<String> classNames = new ArrayList<>();
+            while (entries.hasMoreElements()) {
+                String name = entries.nextElement().getName();
+                if (name.endsWith(".class") && MODEL_PACKAGES.stream().anyMatch(name::startsWith)) {
+                    classNames.add(name.substring(0, name.length() - ".class".length()).replace('/', '.'));
+                }
+            }
+            return classNames;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package org.entur.bahamut;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StagedPipelineTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Test
+    void sourceOrderIsKeptWithParallelStages() {
+        List<Integer> source = IntStream.range(0, 200).boxed().toList();
+
+        List<String> results = assertTimeoutPreemptively(TIMEOUT, () -> StagedPipeline.of(source, 2)
+                .then("double", 4, element -> {
+                    sleepUpTo(2);
+                    return element * 2;
+                })
+                .then("format", 3, element -> {
+                    sleepUpTo(2);
+                    return "element " + element;
+                })
+                .run());
+
+        assertEquals(source.stream().map(element -> "element " + element * 2).toList(), results);
+    }
+
+    @Test
+    void failingStageIsRethrown() {
+        List<Integer> source = IntStream.range(0, 1000).boxed().toList();
+        RuntimeException failure = new IllegalStateException("Element 10 failed");
+
+        RuntimeException thrown = assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(RuntimeException.class,
+                () -> StagedPipeline.of(source, 1)
+                        .then("first", 2, element -> element)
+                        .then("failing", 2, element -> {
+                            if (element == 10) {
+                                throw failure;
+                            }
+                            return element;
+                        })
+                        .then("last", 1, element -> element)
+                        .run()));
+
+        assertSame(failure, thrown);
+    }
+
+    @Test
+    void failingFirstStageIsRethrownWhileLaterStagesWait() {
+        List<Integer> source = IntStream.range(0, 10).boxed().toList();
+
+        RuntimeException thrown = assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(RuntimeException.class,
+                () -> StagedPipeline.of(source, 1)
+                        .<Integer>then("failing", 1, element -> {
+                            throw new IllegalStateException("Element " + element + " failed");
+                        })
+                        .then("slow", 1, element -> {
+                            sleepUpTo(100);
+                            return element;
+                        })
+                        .run()));
+
+        assertEquals("Element 0 failed", thrown.getMessage());
+    }
+
+    @Test
+    void emptySource() {
+        List<String> results = assertTimeoutPreemptively(TIMEOUT, () -> StagedPipeline.of(List.<Integer>of(), 1)
+                .then("first", 2, element -> element + 1)
+                .then("second", 2, String::valueOf)
+                .run());
+
+        assertEquals(List.of(), results);
+    }
+
+    @Test
+    void fastStageIsHeldBackByQueueCapacity() {
+        List<Integer> source = IntStream.range(0, 50).boxed().toList();
+        AtomicInteger produced = new AtomicInteger();
+        AtomicInteger consumed = new AtomicInteger();
+        AtomicInteger maxAhead = new AtomicInteger();
+
+        List<Integer> results = assertTimeoutPreemptively(TIMEOUT, () -> StagedPipeline.of(source, 1)
+                .then("fast", 1, element -> {
+                    produced.incrementAndGet();
+                    return element;
+                })
+                .then("slow", 1, element -> {
+                    int ahead = produced.get() - consumed.incrementAndGet();
+                    maxAhead.accumulateAndGet(ahead, Math::max);
+                    sleepUpTo(5);
+                    return element;
+                })
+                .run());
+
+        assertEquals(source, results);
+        // One element in the queue between the stages, and one the fast stage is blocked putting there.
+        assertTrue(maxAhead.get() <= 2, "Fast stage was " + maxAhead.get() + " elements ahead");
+    }
+
+    private static void sleepUpTo(int millis) {
+        try {
+            Thread.sleep(ThreadLocalRandom.current().nextInt(millis + 1));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+}
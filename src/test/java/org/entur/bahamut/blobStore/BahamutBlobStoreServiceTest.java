@@ -0,0 +1,149 @@
+package org.entur.bahamut.blobStore;
+
+import org.entur.geocoder.blobStore.BlobStoreRepository;
+import org.entur.geocoder.blobStore.InMemoryBlobStoreRepository;
+import org.entur.geocoder.blobStore.LocalDiskBlobStoreRepository;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BahamutBlobStoreServiceTest {
+
+    private static final String BUCKET = "bahamut";
+    private static final String BLOB = "bahamut_export_geocoder.zip";
+    private static final int PART_SIZE = 1000;
+    private static final int PARALLELISM = 3;
+
+    @TempDir
+    Path blobFolder;
+
+    private final BlobStoreConfiguration blobStoreConfiguration = new BlobStoreConfiguration();
+    private final List<String> deletedParts = Collections.synchronizedList(new ArrayList<>());
+
+    @Test
+    void uploadInPartsToLocalDisk() throws IOException {
+        BahamutBlobStoreService service = localDiskService();
+        byte[] content = content(10 * PART_SIZE + 123);
+
+        service.uploadBlobInParts(BLOB, new ByteArrayInputStream(content));
+
+        assertArrayEquals(content, read(service, BLOB));
+        assertEquals(11, deletedParts.size());
+        assertFalse(Files.exists(blobFolder.resolve(BUCKET).resolve(BLOB + ".parts")));
+    }
+
+    @Test
+    void uploadInPartsInMemory() throws IOException {
+        Map<String, Map<String, byte[]>> blobsInContainers = blobStoreConfiguration.blobsInContainers();
+        BahamutBlobStoreService service = inMemoryService(blobsInContainers);
+        byte[] content = content(10 * PART_SIZE + 123);
+
+        service.uploadBlobInParts(BLOB, new ByteArrayInputStream(content));
+
+        assertArrayEquals(content, read(service, BLOB));
+        assertEquals(11, deletedParts.size());
+        assertEquals(Set.of(BLOB), blobsInContainers.get(BUCKET).keySet());
+    }
+
+    @Test
+    void sizeMultipleOfPartSizeHasNoEmptyPart() throws IOException {
+        BahamutBlobStoreService service = localDiskService();
+        byte[] content = content(4 * PART_SIZE);
+
+        service.uploadBlobInParts(BLOB, new ByteArrayInputStream(content));
+
+        assertArrayEquals(content, read(service, BLOB));
+        assertEquals(List.of(part(0), part(1), part(2), part(3)), sorted(deletedParts));
+    }
+
+    @Test
+    void emptyBlobIsUploadedAsOneEmptyPart() throws IOException {
+        BahamutBlobStoreService service = localDiskService();
+
+        service.uploadBlobInParts(BLOB, new ByteArrayInputStream(new byte[0]));
+
+        assertArrayEquals(new byte[0], read(service, BLOB));
+        assertEquals(List.of(part(0)), deletedParts);
+    }
+
+    @Test
+    void failedPartIsRetriedAlone() throws IOException {
+        Map<String, AtomicInteger> uploads = new ConcurrentHashMap<>();
+        BlobStoreRepository repository = new LocalDiskBlobStoreRepository(blobFolder.toString());
+        BahamutBlobStoreService service = new BahamutBlobStoreService(BUCKET, repository,
+                new ConcatenatingBlobComposer(recording(blobStoreConfiguration.localDiskBlobDeleter(blobFolder.toString()))),
+                PART_SIZE, PARALLELISM, RetryTemplate.builder().maxAttempts(3).retryOn(Exception.class).build()) {
+            @Override
+            public void uploadBlob(String name, InputStream inputStream) {
+                if (uploads.computeIfAbsent(name, key -> new AtomicInteger()).incrementAndGet() == 1
+                        && name.equals(part(2))) {
+                    throw new RuntimeException("Upload of " + name + " failed");
+                }
+                super.uploadBlob(name, inputStream);
+            }
+        };
+        byte[] content = content(5 * PART_SIZE + 1);
+
+        service.uploadBlobInParts(BLOB, new ByteArrayInputStream(content));
+
+        assertArrayEquals(content, read(service, BLOB));
+        assertEquals(2, uploads.get(part(2)).get());
+        for (int part : List.of(0, 1, 3, 4, 5)) {
+            assertEquals(1, uploads.get(part(part)).get(), part(part));
+        }
+        assertEquals(1, uploads.get(BLOB).get());
+    }
+
+    private BahamutBlobStoreService localDiskService() {
+        return service(new LocalDiskBlobStoreRepository(blobFolder.toString()),
+                blobStoreConfiguration.localDiskBlobDeleter(blobFolder.toString()));
+    }
+
+    private BahamutBlobStoreService inMemoryService(Map<String, Map<String, byte[]>> blobsInContainers) {
+        return service(new InMemoryBlobStoreRepository(blobsInContainers),
+                blobStoreConfiguration.inMemoryBlobDeleter(blobsInContainers));
+    }
+
+    private BahamutBlobStoreService service(BlobStoreRepository repository, BlobDeleter blobDeleter) {
+        return new BahamutBlobStoreService(BUCKET, repository, new ConcatenatingBlobComposer(recording(blobDeleter)),
+                PART_SIZE, PARALLELISM, RetryTemplate.builder().maxAttempts(1).build());
+    }
+
+    private BlobDeleter recording(BlobDeleter blobDeleter) {
+        return (bucketName, name) -> {
+            deletedParts.add(name);
+            blobDeleter.delete(bucketName, name);
+        };
+    }
+
+    private static String part(int part) {
+        return String.format("%s.parts/%05d", BLOB, part);
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+
+    private static byte[] read(BahamutBlobStoreService service, String name) throws IOException {
+        try (InputStream inputStream = service.getBlob(name)) {
+            return inputStream.readAllBytes();
+        }
+    }
+
+    private static List<String> sorted(List<String> names) {
+        return names.stream().sorted().toList();
+    }
+}
@@ -0,0 +1,268 @@
+package org.entur.bahamut.blobStore;
+
+import com.google.cloud.ReadChannel;
+import com.google.cloud.storage.BlobId;
+import com.google.cloud.storage.Storage;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.retry.support.RetryTemplate;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Proxy;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.*;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Stream;
+import java.util.zip.CRC32C;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GcsRangeBlobDownloaderTest {
+
+    private static final String BUCKET = "kakka";
+    private static final String BLOB = "tiamat/geocoder/tiamat_export_geocoder_latest.zip";
+    private static final int RANGE_SIZE = 1000;
+    private static final int PARALLELISM = 3;
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final BlobId BLOB_ID = BlobId.of(BUCKET, BLOB, 1L);
+
+    @TempDir
+    Path workDir;
+
+    /**
+     * Number of readers opened per range start.
+     */
+    private final Map<Long, AtomicInteger> readers = new ConcurrentHashMap<>();
+
+    @Test
+    void rangesAreReadIntoOneFile() throws IOException {
+        byte[] content = content(10 * RANGE_SIZE + 123);
+        GcsRangeBlobDownloader downloader = downloader(storage(content, Set.of()), 1);
+
+        try (InputStream inputStream = downloader.download(BLOB_ID, BLOB, content.length, crc32c(content))) {
+            assertArrayEquals(content, inputStream.readAllBytes());
+        }
+
+        assertEquals(rangeStarts(11), readers.keySet());
+        readers.values().forEach(count -> assertEquals(1, count.get()));
+        assertEquals(List.of(), downloadedFiles());
+    }
+
+    @Test
+    void sizeMultipleOfRangeSizeHasNoEmptyRange() throws IOException {
+        byte[] content = content(4 * RANGE_SIZE);
+        GcsRangeBlobDownloader downloader = downloader(storage(content, Set.of()), 1);
+
+        try (InputStream inputStream = downloader.download(BLOB_ID, BLOB, content.length, crc32c(content))) {
+            assertArrayEquals(content, inputStream.readAllBytes());
+        }
+
+        assertEquals(rangeStarts(4), readers.keySet());
+    }
+
+    @Test
+    void failedRangeIsRetriedAlone() throws IOException {
+        byte[] content = content(5 * RANGE_SIZE + 1);
+        long failingStart = 2L * RANGE_SIZE;
+        GcsRangeBlobDownloader downloader = downloader(storage(content, Set.of(failingStart)), 3);
+
+        try (InputStream inputStream = downloader.download(BLOB_ID, BLOB, content.length, crc32c(content))) {
+            assertArrayEquals(content, inputStream.readAllBytes());
+        }
+
+        assertEquals(2, readers.get(failingStart).get());
+        readers.forEach((start, count) -> {
+            if (start != failingStart) {
+                assertEquals(1, count.get(), "Range starting at " + start);
+            }
+        });
+    }
+
+    @Test
+    void rangeFailingEveryAttemptFailsTheDownload() {
+        byte[] content = content(5 * RANGE_SIZE + 1);
+        long failingStart = 2L * RANGE_SIZE;
+        GcsRangeBlobDownloader downloader = downloader(storage(content, Set.of(failingStart)), 1);
+
+        RuntimeException thrown = assertThrows(RuntimeException.class,
+                () -> downloader.download(BLOB_ID, BLOB, content.length, crc32c(content)));
+
+        assertEquals("Downloading " + BLOB + " in ranges failed", thrown.getMessage());
+        assertEquals(List.of(), downloadedFiles());
+    }
+
+    @Test
+    void checksumMismatchFailsTheDownload() {
+        byte[] content = content(3 * RANGE_SIZE + 7);
+        byte[] other = content.clone();
+        other[RANGE_SIZE + 1]++;
+        GcsRangeBlobDownloader downloader = downloader(storage(content, Set.of()), 1);
+
+        RuntimeException thrown = assertThrows(RuntimeException.class,
+                () -> downloader.download(BLOB_ID, BLOB, content.length, crc32c(other)));
+
+        assertInstanceOf(IOException.class, thrown.getCause());
+        assertTrue(thrown.getCause().getMessage().startsWith("CRC32C of "), thrown.getCause().getMessage());
+        assertEquals(List.of(), downloadedFiles());
+    }
+
+    @Test
+    void concurrentDownloadsOfTheSameBlobDoNotShareAFile() {
+        byte[] first = content(3 * RANGE_SIZE + 7);
+        byte[] second = content(2 * RANGE_SIZE + 5);
+        CountDownLatch firstStarted = new CountDownLatch(1);
+        CountDownLatch secondDownloaded = new CountDownLatch(1);
+        GcsRangeBlobDownloader firstDownloader = downloader(storage(first, Set.of(), () -> {
+            firstStarted.countDown();
+            await(secondDownloaded);
+        }), 1);
+        GcsRangeBlobDownloader secondDownloader = downloader(storage(second, Set.of()), 1);
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            CompletableFuture<byte[]> firstDownload = CompletableFuture.supplyAsync(
+                    () -> readAll(firstDownloader.download(BLOB_ID, BLOB, first.length, crc32c(first))));
+            await(firstStarted);
+            byte[] secondRead = readAll(secondDownloader.download(BLOB_ID, BLOB, second.length, crc32c(second)));
+            secondDownloaded.countDown();
+
+            assertArrayEquals(second, secondRead);
+            assertArrayEquals(first, firstDownload.join());
+        });
+        assertEquals(List.of(), downloadedFiles());
+    }
+
+    private GcsRangeBlobDownloader downloader(Storage storage, int maxAttempts) {
+        return new GcsRangeBlobDownloader(storage,
+                RetryTemplate.builder().maxAttempts(maxAttempts).retryOn(Exception.class).build(),
+                workDir.resolve("geocoder").toString(), RANGE_SIZE, PARALLELISM);
+    }
+
+    /**
+     * A storage serving the content from readers, of which the first reading each of the failing range starts fails.
+     * Storage and ReadChannel have many methods, so the fakes are proxies answering the ones the downloader uses.
+     */
+    private Storage storage(byte[] content, Set<Long> failingStarts) {
+        return storage(content, failingStarts, () -> {
+        });
+    }
+
+    /**
+     * @param beforeFirstRange called by the reader of the first range before it reads anything.
+     */
+    private Storage storage(byte[] content, Set<Long> failingStarts, Runnable beforeFirstRange) {
+        return proxy(Storage.class, (method, args) -> switch (method) {
+            case "reader" -> reader(content, failingStarts, beforeFirstRange);
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private ReadChannel reader(byte[] content, Set<Long> failingStarts, Runnable beforeFirstRange) {
+        long[] position = {0};
+        long[] limit = {Long.MAX_VALUE};
+        boolean[] failing = {false};
+        return proxy(ReadChannel.class, (method, args) -> switch (method) {
+            case "seek" -> {
+                position[0] = (long) args[0];
+                int reader = readers.computeIfAbsent(position[0], start -> new AtomicInteger()).incrementAndGet();
+                failing[0] = reader == 1 && failingStarts.contains(position[0]);
+                if (position[0] == 0) {
+                    beforeFirstRange.run();
+                }
+                yield null;
+            }
+            case "limit" -> {
+                limit[0] = (long) args[0];
+                yield null;
+            }
+            case "read" -> {
+                if (failing[0]) {
+                    throw new IOException("Connection reset reading at " + position[0]);
+                }
+                long end = Math.min(limit[0], content.length);
+                if (position[0] >= end) {
+                    yield -1;
+                }
+                ByteBuffer buffer = (ByteBuffer) args[0];
+                // less than asked for, as a channel may return
+                int read = (int) Math.min(Math.min(buffer.remaining(), 300), end - position[0]);
+                buffer.put(content, (int) position[0], read);
+                position[0] += read;
+                yield read;
+            }
+            case "isOpen" -> true;
+            case "close" -> null;
+            default -> throw new UnsupportedOperationException(method);
+        });
+    }
+
+    private interface Answer {
+        Object answer(String method, Object[] args) throws Exception;
+    }
+
+    private static <T> T proxy(Class<T> type, Answer answer) {
+        return type.cast(Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[]{type}, (proxy, method, args) -> {
+            if (method.getName().equals("limit") && method.getReturnType() == ReadChannel.class) {
+                answer.answer("limit", args);
+                return proxy;
+            }
+            return answer.answer(method.getName(), args);
+        }));
+    }
+
+    private static byte[] readAll(InputStream download) {
+        try (InputStream inputStream = download) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        }
+    }
+
+    private List<Path> downloadedFiles() {
+        Path downloadDir = workDir.resolve("geocoder-downloads");
+        if (!Files.exists(downloadDir)) {
+            return List.of();
+        }
+        try (Stream<Path> files = Files.list(downloadDir)) {
+            return files.toList();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    private static Set<Long> rangeStarts(int ranges) {
+        Set<Long> starts = new HashSet<>();
+        for (int range = 0; range < ranges; range++) {
+            starts.add((long) range * RANGE_SIZE);
+        }
+        return starts;
+    }
+
+    private static String crc32c(byte[] content) {
+        CRC32C crc32c = new CRC32C();
+        crc32c.update(content);
+        return Base64.getEncoder().encodeToString(
+                ByteBuffer.allocate(Integer.BYTES).putInt((int) crc32c.getValue()).array());
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+}
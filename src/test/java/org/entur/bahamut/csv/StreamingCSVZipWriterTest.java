@@ -0,0 +1,161 @@
+package org.entur.bahamut.csv;
+
+import org.entur.geocoder.model.PeliasDocument;
+import org.entur.geocoder.model.PeliasId;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+import java.util.zip.ZipEntry;
+import java.util.zip.ZipInputStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class StreamingCSVZipWriterTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+    private static final String HEADER = "id,name\n";
+    private static final String CSV_FILENAME = "bahamut_export_geocoder.csv";
+
+    @Test
+    void headerOfFollowingChunksIsStripped() {
+        assertEquals(expectedCsv(10), writeAndUnzip(3, 10));
+    }
+
+    @Test
+    void documentsExactMultipleOfChunkSize() {
+        assertEquals(expectedCsv(9), writeAndUnzip(3, 9));
+    }
+
+    @Test
+    void noDocumentsIsOnlyTheHeader() {
+        assertEquals(HEADER, writeAndUnzip(3, 0));
+    }
+
+    @Test
+    void differentHeaderInFollowingChunkFails() {
+        AtomicInteger chunks = new AtomicInteger();
+        AtomicInteger rows = new AtomicInteger();
+        StreamingCSVZipWriter writer = new StreamingCSVZipWriter(3, documents -> {
+            String header = chunks.getAndIncrement() == 2 ? "id,name,popularity\n" : HEADER;
+            return csv(header, documents, rows);
+        });
+
+        RuntimeException thrown = assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(RuntimeException.class,
+                () -> writer.write(documents(10), CSV_FILENAME, StreamingCSVZipWriterTest::unzip)));
+
+        IllegalStateException headerMismatch = cause(thrown, IllegalStateException.class);
+        assertNotNull(headerMismatch, "Expected a header mismatch, got " + thrown);
+        assertEquals("The csv header of chunk 2 differs from the header of the first chunk: id,name,popularity",
+                headerMismatch.getMessage());
+    }
+
+    @Test
+    void writeFailureReachesTheConsumer() {
+        StreamingCSVZipWriter writer = new StreamingCSVZipWriter(3, csvCreator());
+        RuntimeException mappingFailure = new IllegalStateException("Mapping failed");
+        Stream<PeliasDocument> failingDocuments = IntStream.range(0, 10).mapToObj(i -> {
+            if (i == 7) {
+                throw mappingFailure;
+            }
+            return document(i);
+        });
+        AtomicReference<IOException> readFailure = new AtomicReference<>();
+
+        assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(RuntimeException.class,
+                () -> writer.write(failingDocuments, CSV_FILENAME, zip -> {
+                    try {
+                        zip.readAllBytes();
+                    } catch (IOException e) {
+                        readFailure.set(e);
+                    }
+                })));
+
+        assertNotNull(readFailure.get(), "The consumer read the failed zip as complete");
+        assertSame(mappingFailure, cause(readFailure.get(), IllegalStateException.class));
+    }
+
+    @Test
+    void consumerClosingEarlyUnblocksTheWriter() {
+        StreamingCSVZipWriter writer = new StreamingCSVZipWriter(100, csvCreator());
+
+        assertTimeoutPreemptively(TIMEOUT, () -> assertThrows(RuntimeException.class,
+                () -> writer.write(documents(1_000_000), CSV_FILENAME, zip -> {
+                    try {
+                        zip.read();
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                })));
+    }
+
+    private static String writeAndUnzip(int chunkSize, int documents) {
+        StreamingCSVZipWriter writer = new StreamingCSVZipWriter(chunkSize, csvCreator());
+        AtomicReference<String> csv = new AtomicReference<>();
+        assertTimeoutPreemptively(TIMEOUT,
+                () -> writer.write(documents(documents), CSV_FILENAME, zip -> csv.set(unzip(zip))));
+        return csv.get();
+    }
+
+    private static String unzip(InputStream zip) {
+        try (ZipInputStream zipInputStream = new ZipInputStream(zip)) {
+            ZipEntry entry = zipInputStream.getNextEntry();
+            assertEquals(CSV_FILENAME, entry.getName());
+            String csv = new String(zipInputStream.readAllBytes(), StandardCharsets.UTF_8);
+            assertNull(zipInputStream.getNextEntry());
+            return csv;
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Stands in for CSVCreator, numbering the documents across chunks in the order they are encoded.
+     */
+    private static Function<Stream<PeliasDocument>, InputStream> csvCreator() {
+        AtomicInteger rows = new AtomicInteger();
+        return documents -> csv(HEADER, documents, rows);
+    }
+
+    private static InputStream csv(String header, Stream<PeliasDocument> documents, AtomicInteger rows) {
+        StringBuilder csv = new StringBuilder(header);
+        documents.forEach(document -> csv.append(row(rows.getAndIncrement())));
+        return new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8));
+    }
+
+    private static String expectedCsv(int documents) {
+        StringBuilder csv = new StringBuilder(HEADER);
+        IntStream.range(0, documents).forEach(i -> csv.append(row(i)));
+        return csv.toString();
+    }
+
+    private static String row(int i) {
+        return "NSR:StopPlace:" + i + ",Stop place " + i + "\n";
+    }
+
+    private static Stream<PeliasDocument> documents(int count) {
+        return IntStream.range(0, count).mapToObj(StreamingCSVZipWriterTest::document);
+    }
+
+    private static PeliasDocument document(int i) {
+        return new PeliasDocument(PeliasId.of("NSR:StopPlace:" + i));
+    }
+
+    private static <T extends Throwable> T cause(Throwable throwable, Class<T> type) {
+        for (Throwable cause = throwable; cause != null; cause = cause.getCause()) {
+            if (type.isInstance(cause)) {
+                return type.cast(cause);
+            }
+        }
+        return null;
+    }
+}
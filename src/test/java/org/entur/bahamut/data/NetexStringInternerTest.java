@@ -0,0 +1,49 @@
+package org.entur.bahamut.data;
+
+import org.junit.jupiter.api.Test;
+import org.rutebanken.netex.model.MultilingualString;
+import org.rutebanken.netex.model.SiteRefStructure;
+import org.rutebanken.netex.model.StopPlace;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class NetexStringInternerTest {
+
+    @Test
+    void repeatedStringsArePooled() {
+        List<StopPlace> stopPlaces = List.of(
+                stopPlace("NSR:StopPlace:1", null),
+                stopPlace("NSR:StopPlace:2", "NSR:StopPlace:1"),
+                stopPlace("NSR:StopPlace:3", "NSR:StopPlace:1"));
+
+        new NetexStringInterner(new StringPool()).internStopPlaces(stopPlaces);
+
+        assertSame(stopPlaces.get(0).getVersion(), stopPlaces.get(1).getVersion());
+        assertSame(stopPlaces.get(0).getName().getLang(), stopPlaces.get(2).getName().getLang());
+        assertSame(stopPlaces.get(1).getParentSiteRef().getRef(), stopPlaces.get(2).getParentSiteRef().getRef());
+    }
+
+    @Test
+    void uniqueIdsAreNotPooled() {
+        StringPool stringPool = new StringPool();
+        List<StopPlace> stopPlaces = List.of(
+                stopPlace("NSR:StopPlace:1", null),
+                stopPlace("NSR:StopPlace:2", null),
+                stopPlace("NSR:StopPlace:3", null));
+
+        new NetexStringInterner(stringPool).internStopPlaces(stopPlaces);
+
+        // the version and the language code only
+        assertEquals(2, stringPool.size());
+    }
+
+    private static StopPlace stopPlace(String id, String parentId) {
+        return new StopPlace()
+                .withId(id)
+                .withVersion(new String("1"))
+                .withName(new MultilingualString().withLang(new String("nor")).withValue(id))
+                .withParentSiteRef(parentId == null ? null : new SiteRefStructure().withRef(new String(parentId)));
+    }
+}
@@ -0,0 +1,118 @@
+package org.entur.bahamut.delta;
+
+import org.entur.bahamut.delta.DeltaExporter.Change;
+import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchies;
+import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchy;
+import org.junit.jupiter.api.Test;
+import org.rutebanken.netex.model.MultilingualString;
+import org.rutebanken.netex.model.SiteRefStructure;
+import org.rutebanken.netex.model.StopPlace;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DeltaExporterTest {
+
+    @Test
+    void addedChangedAndRemoved() {
+        Fingerprints previous = new Fingerprints(Map.of(
+                "NSR:StopPlace:1", new Fingerprint("1", 1),
+                "NSR:StopPlace:2", new Fingerprint("1", 2),
+                "NSR:StopPlace:3", new Fingerprint("1", 3)));
+        Fingerprints current = new Fingerprints(Map.of(
+                "NSR:StopPlace:1", new Fingerprint("1", 1),
+                "NSR:StopPlace:2", new Fingerprint("1", 20),
+                "NSR:StopPlace:4", new Fingerprint("1", 4)));
+
+        assertEquals(Map.of(
+                        "NSR:StopPlace:2", Change.CHANGED,
+                        "NSR:StopPlace:3", Change.REMOVED,
+                        "NSR:StopPlace:4", Change.ADDED),
+                DeltaExporter.findChanges(previous, current));
+    }
+
+    @Test
+    void changeIsDetectedFromHashOnly() {
+        Fingerprints previous = new Fingerprints(Map.of(
+                "NSR:StopPlace:1", new Fingerprint("1", 1),
+                "NSR:StopPlace:2", new Fingerprint("1", 2)));
+        Fingerprints current = new Fingerprints(Map.of(
+                "NSR:StopPlace:1", new Fingerprint("2", 1),
+                "NSR:StopPlace:2", new Fingerprint("1", 3)));
+
+        assertEquals(Map.of("NSR:StopPlace:2", Change.CHANGED), DeltaExporter.findChanges(previous, current));
+    }
+
+    @Test
+    void everythingIsAddedWithoutPreviousFingerprints() {
+        Fingerprints current = new Fingerprints(Map.of(
+                "NSR:StopPlace:1", new Fingerprint("1", 1),
+                "NSR:GroupOfStopPlaces:1", new Fingerprint(null, 2)));
+
+        assertEquals(Map.of(
+                        "NSR:StopPlace:1", Change.ADDED,
+                        "NSR:GroupOfStopPlaces:1", Change.ADDED),
+                DeltaExporter.findChanges(Fingerprints.empty(), current));
+    }
+
+    @Test
+    void unchangedStopPlacesAreNotChanged() {
+        List<StopPlace> stopPlaces = stopPlaces();
+
+        assertEquals(Map.of(), DeltaExporter.findChanges(fingerprints(stopPlaces), fingerprints(stopPlaces())));
+    }
+
+    @Test
+    void renamedParentChangesChildren() {
+        Fingerprints previous = fingerprints(stopPlaces());
+        List<StopPlace> stopPlaces = stopPlaces();
+        stopPlaces.get(0).setName(new MultilingualString().withLang("nor").withValue("Renamed"));
+
+        assertEquals(Map.of(
+                        "NSR:StopPlace:1", Change.CHANGED,
+                        "NSR:StopPlace:2", Change.CHANGED,
+                        "NSR:StopPlace:3", Change.CHANGED),
+                DeltaExporter.findChanges(previous, fingerprints(stopPlaces)));
+    }
+
+    @Test
+    void changedPopularityChangesStopPlace() {
+        List<StopPlace> stopPlaces = stopPlaces();
+        StopPlaceHierarchy hierarchy = StopPlaceHierarchies.create(stopPlaces).get(3);
+
+        assertNotEquals(FingerprintCalculator.of(hierarchy, 10L, true).hash(),
+                FingerprintCalculator.of(hierarchy, 11L, true).hash());
+        assertNotEquals(FingerprintCalculator.of(hierarchy, 10L, true).hash(),
+                FingerprintCalculator.of(hierarchy, 10L, false).hash());
+    }
+
+    /**
+     * A parent with a child and a grand child, and an unrelated stop place.
+     */
+    private static List<StopPlace> stopPlaces() {
+        return List.of(
+                stopPlace("NSR:StopPlace:1", null),
+                stopPlace("NSR:StopPlace:2", "NSR:StopPlace:1"),
+                stopPlace("NSR:StopPlace:3", "NSR:StopPlace:2"),
+                stopPlace("NSR:StopPlace:4", null));
+    }
+
+    private static Fingerprints fingerprints(List<StopPlace> stopPlaces) {
+        Map<String, Fingerprint> fingerprintPerId = new HashMap<>();
+        for (StopPlaceHierarchy hierarchy : StopPlaceHierarchies.create(stopPlaces)) {
+            fingerprintPerId.put(hierarchy.place().getId(), FingerprintCalculator.of(hierarchy, 10L, true));
+        }
+        return new Fingerprints(fingerprintPerId);
+    }
+
+    private static StopPlace stopPlace(String id, String parentId) {
+        return new StopPlace()
+                .withId(id)
+                .withVersion("1")
+                .withName(new MultilingualString().withLang("nor").withValue(id))
+                .withParentSiteRef(parentId == null ? null : new SiteRefStructure().withRef(parentId));
+    }
+}
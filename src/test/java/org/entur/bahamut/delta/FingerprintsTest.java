@@ -0,0 +1,76 @@
+package org.entur.bahamut.delta;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class FingerprintsTest {
+
+    @Test
+    void writtenFingerprintsAreReadBack() {
+        Fingerprints fingerprints = fingerprints(new HashMap<>());
+
+        Fingerprints read = Fingerprints.read(new ByteArrayInputStream(bytes(fingerprints)));
+
+        assertEquals(fingerprints.fingerprintPerId(), read.fingerprintPerId());
+    }
+
+    @Test
+    void roundTripIsByteExact() {
+        byte[] written = bytes(fingerprints(new HashMap<>()));
+
+        byte[] rewritten = bytes(Fingerprints.read(new ByteArrayInputStream(written)));
+
+        assertArrayEquals(written, rewritten);
+    }
+
+    @Test
+    void sameFingerprintsAreWrittenAsSameBytes() {
+        assertArrayEquals(bytes(fingerprints(new HashMap<>())), bytes(fingerprints(new LinkedHashMap<>())));
+    }
+
+    @Test
+    void emptyVersionIsReadAsNoVersion() {
+        Fingerprints fingerprints = new Fingerprints(Map.of("NSR:StopPlace:1", new Fingerprint("", 1)));
+
+        Fingerprints read = Fingerprints.read(new ByteArrayInputStream(bytes(fingerprints)));
+
+        assertEquals(new Fingerprint(null, 1), read.get("NSR:StopPlace:1"));
+    }
+
+    @Test
+    void emptyFingerprints() {
+        byte[] written = bytes(Fingerprints.empty());
+
+        assertEquals(Map.of(), Fingerprints.read(new ByteArrayInputStream(written)).fingerprintPerId());
+    }
+
+    /**
+     * Fingerprints with and without version, and with hashes over the whole unsigned range.
+     */
+    private static Fingerprints fingerprints(Map<String, Fingerprint> fingerprintPerId) {
+        fingerprintPerId.put("NSR:StopPlace:3", new Fingerprint("12", 0x7fffffffffffffffL));
+        fingerprintPerId.put("NSR:StopPlace:1", new Fingerprint("1", 0));
+        fingerprintPerId.put("NSR:GroupOfStopPlaces:1", new Fingerprint(null, -1));
+        fingerprintPerId.put("NSR:StopPlace:2", new Fingerprint("3", 0xcbf29ce484222325L));
+        for (int i = 10; i < 100; i++) {
+            fingerprintPerId.put("NSR:StopPlace:" + i, new Fingerprint(String.valueOf(i), i * 0x9e3779b97f4a7c15L));
+        }
+        return new Fingerprints(fingerprintPerId);
+    }
+
+    private static byte[] bytes(Fingerprints fingerprints) {
+        try (InputStream inputStream = fingerprints.write()) {
+            return inputStream.readAllBytes();
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+}
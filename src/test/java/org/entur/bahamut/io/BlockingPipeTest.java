@@ -0,0 +1,121 @@
+package org.entur.bahamut.io;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.time.Duration;
+import java.util.Random;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class BlockingPipeTest {
+
+    private static final Duration TIMEOUT = Duration.ofSeconds(10);
+
+    @Test
+    void bytesArePassedThroughInOrder() {
+        byte[] content = new byte[10_000];
+        new Random(1).nextBytes(content);
+        BlockingPipe pipe = new BlockingPipe(64, 2);
+
+        byte[] read = assertTimeoutPreemptively(TIMEOUT, () -> {
+            CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+                try (OutputStream outputStream = pipe.outputStream()) {
+                    outputStream.write(content[0]);
+                    outputStream.write(content, 1, 999);
+                    outputStream.flush();
+                    outputStream.write(content, 1000, content.length - 1000);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            try (InputStream inputStream = pipe.inputStream()) {
+                byte[] bytes = inputStream.readAllBytes();
+                writer.join();
+                return bytes;
+            }
+        });
+
+        assertArrayEquals(content, read);
+    }
+
+    @Test
+    void writeFailureIsReportedToReaderAfterBlocksWritten() {
+        BlockingPipe pipe = new BlockingPipe(4, 4);
+        RuntimeException cause = new IllegalStateException("Mapping failed");
+
+        IOException thrown = assertTimeoutPreemptively(TIMEOUT, () -> {
+            CompletableFuture.runAsync(() -> {
+                try {
+                    OutputStream outputStream = pipe.outputStream();
+                    outputStream.write(new byte[]{1, 2, 3, 4, 5, 6});
+                    outputStream.flush();
+                    pipe.fail(cause);
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            try (InputStream inputStream = pipe.inputStream()) {
+                byte[] buffer = new byte[6];
+                int read = 0;
+                while (read < buffer.length) {
+                    read += inputStream.read(buffer, read, buffer.length - read);
+                }
+                assertArrayEquals(new byte[]{1, 2, 3, 4, 5, 6}, buffer);
+                return assertThrows(IOException.class, inputStream::read);
+            }
+        });
+
+        assertSame(cause, thrown.getCause());
+    }
+
+    @Test
+    void failureWithoutAnyBlockIsNotAnEmptyStream() throws IOException {
+        BlockingPipe pipe = new BlockingPipe(4, 1);
+        pipe.fail(new IllegalStateException("Failed before writing"));
+
+        try (InputStream inputStream = pipe.inputStream()) {
+            assertThrows(IOException.class, inputStream::readAllBytes);
+        }
+    }
+
+    @Test
+    void readerClosingUnblocksWriter() {
+        BlockingPipe pipe = new BlockingPipe(4, 1);
+
+        ExecutionException thrown = assertTimeoutPreemptively(TIMEOUT, () -> {
+            CompletableFuture<Void> writer = CompletableFuture.runAsync(() -> {
+                try (OutputStream outputStream = pipe.outputStream()) {
+                    byte[] block = new byte[4];
+                    while (true) {
+                        outputStream.write(block);
+                    }
+                } catch (IOException e) {
+                    throw new RuntimeException(e);
+                }
+            });
+            InputStream inputStream = pipe.inputStream();
+            assertEquals(0, inputStream.read());
+            inputStream.close();
+            return assertThrows(ExecutionException.class, writer::get);
+        });
+
+        assertInstanceOf(IOException.class, thrown.getCause().getCause());
+        assertEquals("Pipe closed by reader", thrown.getCause().getCause().getMessage());
+    }
+
+    @Test
+    void failAfterReaderClosedDoesNotBlock() throws IOException {
+        BlockingPipe pipe = new BlockingPipe(4, 1);
+        pipe.inputStream().close();
+
+        assertTimeoutPreemptively(TIMEOUT, () -> {
+            pipe.fail(new IllegalStateException("Failed"));
+            pipe.fail(new IllegalStateException("Failed again"));
+        });
+    }
+}
@@ -0,0 +1,113 @@
+package org.entur.bahamut.io;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class MappedFileInputStreamTest {
+
+    private static final int SEGMENT_SIZE = 16;
+
+    @TempDir
+    Path folder;
+
+    @Test
+    void readArraysAcrossSegments() throws IOException {
+        byte[] content = content(5 * SEGMENT_SIZE + 3);
+        for (int bufferSize : new int[]{1, 5, SEGMENT_SIZE, SEGMENT_SIZE + 1, 3 * SEGMENT_SIZE, 1000}) {
+            try (InputStream inputStream = open(content)) {
+                ByteArrayOutputStream read = new ByteArrayOutputStream();
+                byte[] buffer = new byte[bufferSize + 2];
+                int n;
+                while ((n = inputStream.read(buffer, 1, bufferSize)) != -1) {
+                    assertTrue(n > 0 && n <= bufferSize, "Read " + n + " with buffer size " + bufferSize);
+                    read.write(buffer, 1, n);
+                }
+                assertArrayEquals(content, read.toByteArray());
+            }
+        }
+    }
+
+    @Test
+    void readBytesAcrossSegments() throws IOException {
+        byte[] content = content(3 * SEGMENT_SIZE + 7);
+        try (InputStream inputStream = open(content)) {
+            for (byte expected : content) {
+                assertEquals(expected & 0xff, inputStream.read());
+            }
+            assertEquals(-1, inputStream.read());
+        }
+    }
+
+    @Test
+    void readAllBytesOfExactMultipleOfSegmentSize() throws IOException {
+        byte[] content = content(4 * SEGMENT_SIZE);
+        try (InputStream inputStream = open(content)) {
+            assertArrayEquals(content, inputStream.readAllBytes());
+            assertEquals(-1, inputStream.read());
+        }
+    }
+
+    @Test
+    void skipWithinAndAcrossSegments() throws IOException {
+        byte[] content = content(6 * SEGMENT_SIZE + 5);
+        try (InputStream inputStream = open(content)) {
+            assertEquals(content[0] & 0xff, inputStream.read());
+            assertEquals(4, inputStream.skip(4));
+            assertEquals(content[5] & 0xff, inputStream.read());
+            // to the end of the first segment, so the next read maps the second
+            assertEquals(SEGMENT_SIZE - 6, inputStream.skip(SEGMENT_SIZE - 6));
+            assertEquals(content[SEGMENT_SIZE] & 0xff, inputStream.read());
+            // over two segments
+            assertEquals(2 * SEGMENT_SIZE, inputStream.skip(2 * SEGMENT_SIZE));
+            byte[] buffer = new byte[SEGMENT_SIZE];
+            int n = inputStream.read(buffer);
+            assertArrayEquals(Arrays.copyOfRange(content, 3 * SEGMENT_SIZE + 1, 3 * SEGMENT_SIZE + 1 + n),
+                    Arrays.copyOf(buffer, n));
+        }
+    }
+
+    @Test
+    void skipPastEndStopsAtEnd() throws IOException {
+        byte[] content = content(2 * SEGMENT_SIZE + 1);
+        try (InputStream inputStream = open(content)) {
+            assertEquals(content.length - 3, inputStream.skip(content.length - 3));
+            assertEquals(3, inputStream.available());
+            assertEquals(3, inputStream.skip(100));
+            assertEquals(0, inputStream.skip(1));
+            assertEquals(0, inputStream.available());
+            assertEquals(-1, inputStream.read());
+            assertEquals(-1, inputStream.read(new byte[4], 0, 4));
+        }
+    }
+
+    @Test
+    void emptyFile() throws IOException {
+        try (InputStream inputStream = open(new byte[0])) {
+            assertEquals(0, inputStream.read(new byte[4], 0, 0));
+            assertEquals(-1, inputStream.read(new byte[4], 0, 4));
+            assertEquals(-1, inputStream.read());
+            assertEquals(0, inputStream.skip(10));
+        }
+    }
+
+    private InputStream open(byte[] content) throws IOException {
+        Path file = Files.write(folder.resolve("netex.xml"), content);
+        return new MappedFileInputStream(file, SEGMENT_SIZE);
+    }
+
+    private static byte[] content(int size) {
+        byte[] content = new byte[size];
+        new Random(size).nextBytes(content);
+        return content;
+    }
+}
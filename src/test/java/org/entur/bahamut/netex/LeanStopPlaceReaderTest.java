@@ -0,0 +1,170 @@
+package org.entur.bahamut.netex;
+
+import org.entur.bahamut.OrderedParallelMapper;
+import org.entur.bahamut.data.BahamutData;
+import org.entur.bahamut.data.BahamutDataBuilder;
+import org.entur.bahamut.groupOfStopPlaces.GroupOfStopPlacesBoostConfiguration;
+import org.entur.bahamut.groupOfStopPlaces.GroupOfStopPlacesPopularityCacheBuilder;
+import org.entur.bahamut.stopPlaces.StopPlacePeliasDocumentMapper;
+import org.entur.bahamut.stopPlaces.boostConfiguration.StopPlaceBoostConfiguration;
+import org.entur.bahamut.stopPlaces.stopPlacePopularityCache.StopPlacesPopularityCacheBuilder;
+import org.entur.geocoder.csv.CSVCreator;
+import org.junit.jupiter.api.Test;
+import org.rutebanken.netex.model.*;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Objects;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * The same Netex file read with LeanStopPlaceReader and with JAXB.
+ */
+class LeanStopPlaceReaderTest {
+
+    private static final String NETEX_FILE = "/netex/stopPlaces.xml";
+
+    private static final String BOOST_CONFIG = "{\"defaultValue\":30,"
+            + "\"interchangeFactors\":{\"preferredInterchange\":5,\"interchangeAllowed\":2},"
+            + "\"stopTypeFactors\":{"
+            + "\"railStation\":{\"*\":2,\"regionalRail\":3},"
+            + "\"onstreetBus\":{\"*\":1.5,\"localBus\":2.5},"
+            + "\"ferryStop\":{\"localCarFerry\":4},"
+            + "\"metroStation\":{\"metro\":6},"
+            + "\"airport\":{\"domesticFlight\":7},"
+            + "\"onstreetTram\":{\"cityTram\":8}}}";
+
+    @Test
+    void samePeliasDocumentsAsJaxb() throws IOException {
+        String lean = csv(read(true));
+        String jaxb = csv(read(false));
+
+        assertEquals(jaxb, lean);
+        for (String id : List.of("NSR:StopPlace:1", "NSR:StopPlace:2", "NSR:StopPlace:3", "NSR:StopPlace:4", "NSR:StopPlace:9")) {
+            assertTrue(lean.contains(id), id);
+        }
+        for (String id : List.of("NSR:StopPlace:5", "NSR:StopPlace:7", "NSR:StopPlace:8", "NSR:StopPlace:10")) {
+            assertFalse(lean.contains(id + ","), id);
+        }
+    }
+
+    @Test
+    void sameFieldsAsJaxb() {
+        List<StopPlace> lean = read(true).stopPlaces();
+        List<StopPlace> jaxb = read(false).stopPlaces();
+
+        assertEquals(jaxb.size(), lean.size());
+        for (int i = 0; i < jaxb.size(); i++) {
+            StopPlace expected = jaxb.get(i);
+            StopPlace actual = lean.get(i);
+            String id = expected.getId();
+            assertEquals(id, actual.getId());
+            assertEquals(expected.getVersion(), actual.getVersion(), id);
+            assertEquals(keyList(expected), keyList(actual), id);
+            assertEquals(validBetween(expected), validBetween(actual), id);
+            assertEquals(string(expected.getName()), string(actual.getName()), id);
+            assertEquals(string(expected.getDescription()), string(actual.getDescription()), id);
+            assertEquals(alternativeNames(expected), alternativeNames(actual), id);
+            assertEquals(centroid(expected), centroid(actual), id);
+            assertEquals(ref(expected.getTopographicPlaceRef()), ref(actual.getTopographicPlaceRef()), id);
+            assertEquals(ref(expected.getParentSiteRef()), ref(actual.getParentSiteRef()), id);
+            assertEquals(expected.getTransportMode(), actual.getTransportMode(), id);
+            assertEquals(expected.getStopPlaceType(), actual.getStopPlaceType(), id);
+            assertEquals(expected.getAirSubmode(), actual.getAirSubmode(), id);
+            assertEquals(expected.getBusSubmode(), actual.getBusSubmode(), id);
+            assertEquals(expected.getWaterSubmode(), actual.getWaterSubmode(), id);
+            assertEquals(expected.getRailSubmode(), actual.getRailSubmode(), id);
+            assertEquals(expected.getMetroSubmode(), actual.getMetroSubmode(), id);
+            assertEquals(expected.getTramSubmode(), actual.getTramSubmode(), id);
+            assertEquals(expected.getWeighting(), actual.getWeighting(), id);
+            assertEquals(tariffZones(expected), tariffZones(actual), id);
+            assertEquals(quays(expected), quays(actual), id);
+        }
+    }
+
+    private static NetexStopPlaces read(boolean lean) {
+        List<StopPlace> stopPlaces = new ArrayList<>();
+        List<GroupOfStopPlaces> groupOfStopPlaces = new ArrayList<>();
+        try (InputStream inputStream = Objects.requireNonNull(LeanStopPlaceReaderTest.class.getResourceAsStream(NETEX_FILE))) {
+            new NetexStopPlacesReader(lean, true).read(inputStream, stopPlaces::add, groupOfStopPlaces::add);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        return new NetexStopPlaces(stopPlaces, groupOfStopPlaces);
+    }
+
+    private static String csv(NetexStopPlaces netexStopPlaces) throws IOException {
+        BahamutData bahamutData = new BahamutDataBuilder(
+                new StopPlacesPopularityCacheBuilder(new StopPlaceBoostConfiguration(BOOST_CONFIG)),
+                new GroupOfStopPlacesPopularityCacheBuilder(new GroupOfStopPlacesBoostConfiguration(1.0)),
+                "2024-06-01T00:00:00Z",
+                "Europe/Oslo")
+                .build(netexStopPlaces.stopPlaces(), netexStopPlaces.groupOfStopPlaces());
+        var mapper = new StopPlacePeliasDocumentMapper(new OrderedParallelMapper(1, 100));
+        try (InputStream csv = CSVCreator.create(mapper.toPeliasDocuments(bahamutData))) {
+            return new String(csv.readAllBytes(), StandardCharsets.UTF_8);
+        }
+    }
+
+    private static List<String> keyList(StopPlace stopPlace) {
+        if (stopPlace.getKeyList() == null) {
+            return null;
+        }
+        return stopPlace.getKeyList().getKeyValue().stream()
+                .map(keyValue -> keyValue.getKey() + "=" + keyValue.getValue())
+                .toList();
+    }
+
+    private static String validBetween(StopPlace stopPlace) {
+        if (stopPlace.getValidBetween().isEmpty()) {
+            return null;
+        }
+        ValidBetween validBetween = stopPlace.getValidBetween().get(0);
+        return validBetween.getFromDate() + "/" + validBetween.getToDate();
+    }
+
+    private static String string(MultilingualString multilingualString) {
+        return multilingualString == null ? null : multilingualString.getLang() + ":" + multilingualString.getValue();
+    }
+
+    private static List<String> alternativeNames(StopPlace stopPlace) {
+        if (stopPlace.getAlternativeNames() == null) {
+            return null;
+        }
+        return stopPlace.getAlternativeNames().getAlternativeName().stream()
+                .map(alternativeName -> alternativeName.getNameType() + " " + string(alternativeName.getName()))
+                .toList();
+    }
+
+    private static String centroid(StopPlace stopPlace) {
+        if (stopPlace.getCentroid() == null) {
+            return null;
+        }
+        LocationStructure location = stopPlace.getCentroid().getLocation();
+        return location.getLatitude() + "," + location.getLongitude();
+    }
+
+    private static String ref(VersionOfObjectRefStructure ref) {
+        return ref == null ? null : ref.getRef();
+    }
+
+    private static List<String> tariffZones(StopPlace stopPlace) {
+        if (stopPlace.getTariffZones() == null) {
+            return null;
+        }
+        return stopPlace.getTariffZones().getTariffZoneRef().stream()
+                .map(VersionOfObjectRefStructure::getRef)
+                .toList();
+    }
+
+    private static long quays(StopPlace stopPlace) {
+        return stopPlace.getQuays() == null
+                ? -1
+                : Stream.ofNullable(stopPlace.getQuays().getQuayRefOrQuay()).mapToLong(List::size).sum();
+    }
+}
@@ -0,0 +1,39 @@
+package org.entur.bahamut.stopPlaces;
+
+import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchies;
+import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchyIndex;
+import org.junit.jupiter.api.Test;
+import org.rutebanken.netex.model.SiteRefStructure;
+import org.rutebanken.netex.model.StopPlace;
+import org.rutebanken.netex.model.StopTypeEnumeration;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+class StopPlacePeliasDocumentTemplateTest {
+
+    @Test
+    void categoriesOfPlaceAndDescendantsDepthFirst() {
+        StopPlaceHierarchyIndex hierarchies = StopPlaceHierarchies.create(List.of(
+                stopPlace("NSR:StopPlace:1", null, null),
+                stopPlace("NSR:StopPlace:2", "NSR:StopPlace:1", StopTypeEnumeration.RAIL_STATION),
+                stopPlace("NSR:StopPlace:3", "NSR:StopPlace:2", StopTypeEnumeration.ONSTREET_BUS),
+                stopPlace("NSR:StopPlace:4", "NSR:StopPlace:1", StopTypeEnumeration.ONSTREET_BUS),
+                stopPlace("NSR:StopPlace:5", "NSR:StopPlace:2", StopTypeEnumeration.METRO_STATION)));
+
+        String rail = StopTypeEnumeration.RAIL_STATION.value();
+        String bus = StopTypeEnumeration.ONSTREET_BUS.value();
+        String metro = StopTypeEnumeration.METRO_STATION.value();
+        assertEquals(List.of(rail, bus, metro, bus), StopPlacePeliasDocumentTemplate.categories(hierarchies.get(0)));
+        assertEquals(List.of(rail, bus, metro), StopPlacePeliasDocumentTemplate.categories(hierarchies.get(1)));
+        assertEquals(List.of(bus), StopPlacePeliasDocumentTemplate.categories(hierarchies.get(2)));
+    }
+
+    private static StopPlace stopPlace(String id, String parentId, StopTypeEnumeration stopPlaceType) {
+        return new StopPlace()
+                .withId(id)
+                .withStopPlaceType(stopPlaceType)
+                .withParentSiteRef(parentId == null ? null : new SiteRefStructure().withRef(parentId));
+    }
+}
@@ -0,0 +1,187 @@
+package org.entur.bahamut.stopPlaces.boostConfiguration;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchies;
+import org.entur.bahamut.stopPlaces.stopPlaceHierarchy.StopPlaceHierarchy;
+import org.junit.jupiter.api.Test;
+import org.rutebanken.netex.model.*;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Random boost configurations and stop place hierarchies, scored by the compiled tables and by the map based
+ * implementation they replaced.
+ */
+class StopPlaceBoostConfigurationTest {
+
+    private static final int CONFIGURATIONS = 500;
+    private static final int STOP_PLACES = 40;
+
+    @Test
+    void sameBoostAsMapBasedImplementation() throws JsonProcessingException {
+        for (long seed = 0; seed < CONFIGURATIONS; seed++) {
+            Random random = new Random(seed);
+            String boostConfig = randomBoostConfig(random);
+            StopPlaceBoostConfiguration compiled = new StopPlaceBoostConfiguration(boostConfig);
+            LegacyStopPlaceBoostConfiguration legacy = new LegacyStopPlaceBoostConfiguration(boostConfig);
+
+            for (StopPlaceHierarchy hierarchy : StopPlaceHierarchies.create(randomStopPlaces(random))) {
+                assertEquals(legacy.getPopularity(hierarchy), compiled.getPopularity(hierarchy),
+                        "Seed " + seed + ", " + hierarchy.place().getId());
+            }
+        }
+    }
+
+    @Test
+    void subModeFactorChangesBoost() throws JsonProcessingException {
+        StopPlaceBoostConfigJSON config = new StopPlaceBoostConfigJSON();
+        config.defaultValue = 10;
+        config.stopTypeFactors = Map.of(StopTypeEnumeration.RAIL_STATION.value(),
+                Map.of("*", 2.0, RailSubmodeEnumeration.REGIONAL_RAIL.value(), 3.0));
+        StopPlaceBoostConfiguration boostConfiguration =
+                new StopPlaceBoostConfiguration(new ObjectMapper().writeValueAsString(config));
+
+        List<StopPlaceHierarchy> hierarchies = StopPlaceHierarchies.create(List.of(
+                railStation("NSR:StopPlace:1", RailSubmodeEnumeration.REGIONAL_RAIL, null),
+                railStation("NSR:StopPlace:2", RailSubmodeEnumeration.LOCAL, null),
+                railStation("NSR:StopPlace:3", null, null),
+                new StopPlace().withId("NSR:StopPlace:4"),
+                railStation("NSR:StopPlace:5", RailSubmodeEnumeration.REGIONAL_RAIL, "NSR:StopPlace:4"),
+                railStation("NSR:StopPlace:6", null, "NSR:StopPlace:4")));
+
+        assertEquals(30, boostConfiguration.getPopularity(hierarchies.get(0)));
+        assertEquals(20, boostConfiguration.getPopularity(hierarchies.get(1)));
+        assertEquals(20, boostConfiguration.getPopularity(hierarchies.get(2)));
+        assertEquals(50, boostConfiguration.getPopularity(hierarchies.get(3)));
+    }
+
+    private static StopPlace railStation(String id, RailSubmodeEnumeration subMode, String parentId) {
+        return new StopPlace()
+                .withId(id)
+                .withStopPlaceType(StopTypeEnumeration.RAIL_STATION)
+                .withRailSubmode(subMode)
+                .withParentSiteRef(parentId == null ? null : new SiteRefStructure().withRef(parentId));
+    }
+
+    private static String randomBoostConfig(Random random) throws JsonProcessingException {
+        StopPlaceBoostConfigJSON config = new StopPlaceBoostConfigJSON();
+        config.defaultValue = 1 + random.nextInt(1000);
+
+        if (random.nextBoolean()) {
+            config.interchangeFactors = new HashMap<>();
+            for (InterchangeWeightingEnumeration weighting : InterchangeWeightingEnumeration.values()) {
+                if (random.nextBoolean()) {
+                    config.interchangeFactors.put(weighting.value(), randomFactor(random));
+                }
+            }
+        }
+
+        if (random.nextInt(10) > 0) {
+            config.stopTypeFactors = new HashMap<>();
+            for (StopTypeEnumeration stopType : StopTypeEnumeration.values()) {
+                if (random.nextBoolean()) {
+                    Map<String, Double> factorPerSubMode = new HashMap<>();
+                    if (random.nextBoolean()) {
+                        factorPerSubMode.put("*", randomFactor(random));
+                    }
+                    for (Enum<?> subMode : subModes(stopType)) {
+                        if (random.nextInt(3) == 0) {
+                            factorPerSubMode.put(subModeValue(subMode), randomFactor(random));
+                        }
+                    }
+                    config.stopTypeFactors.put(stopType.value(), factorPerSubMode);
+                }
+            }
+        }
+
+        return new ObjectMapper().writeValueAsString(config);
+    }
+
+    private static double randomFactor(Random random) {
+        return switch (random.nextInt(4)) {
+            case 0 -> 0;
+            case 1 -> 1 + random.nextInt(5);
+            case 2 -> random.nextInt(8) / 4.0;
+            default -> random.nextDouble() * 10;
+        };
+    }
+
+    /**
+     * Random stop places with random stop types, sub modes and weightings,
+     * each either a root or the child of a stop place before it.
+     */
+    private static List<StopPlace> randomStopPlaces(Random random) {
+        List<StopPlace> stopPlaces = new ArrayList<>();
+        for (int i = 0; i < STOP_PLACES; i++) {
+            StopTypeEnumeration stopType = random.nextInt(8) == 0
+                    ? null
+                    : pick(random, StopTypeEnumeration.values());
+            StopPlace stopPlace = new StopPlace()
+                    .withId("NSR:StopPlace:" + i)
+                    .withStopPlaceType(stopType)
+                    .withWeighting(random.nextBoolean() ? null : pick(random, InterchangeWeightingEnumeration.values()));
+            if (stopType != null && random.nextBoolean()) {
+                withSubMode(stopPlace, pick(random, subModes(stopType)));
+            }
+            if (i > 0 && random.nextBoolean()) {
+                stopPlace.setParentSiteRef(new SiteRefStructure().withRef("NSR:StopPlace:" + random.nextInt(i)));
+            }
+            stopPlaces.add(stopPlace);
+        }
+        return stopPlaces;
+    }
+
+    private static Enum<?>[] subModes(StopTypeEnumeration stopType) {
+        return switch (stopType) {
+            case AIRPORT -> AirSubmodeEnumeration.values();
+            case HARBOUR_PORT, FERRY_STOP, FERRY_PORT -> WaterSubmodeEnumeration.values();
+            case BUS_STATION, COACH_STATION, ONSTREET_BUS -> BusSubmodeEnumeration.values();
+            case RAIL_STATION -> RailSubmodeEnumeration.values();
+            case METRO_STATION -> MetroSubmodeEnumeration.values();
+            case ONSTREET_TRAM, TRAM_STATION -> TramSubmodeEnumeration.values();
+            default -> new Enum<?>[0];
+        };
+    }
+
+    private static String subModeValue(Enum<?> subMode) {
+        if (subMode instanceof AirSubmodeEnumeration air) {
+            return air.value();
+        } else if (subMode instanceof WaterSubmodeEnumeration water) {
+            return water.value();
+        } else if (subMode instanceof BusSubmodeEnumeration bus) {
+            return bus.value();
+        } else if (subMode instanceof RailSubmodeEnumeration rail) {
+            return rail.value();
+        } else if (subMode instanceof MetroSubmodeEnumeration metro) {
+            return metro.value();
+        }
+        return ((TramSubmodeEnumeration) subMode).value();
+    }
+
+    private static void withSubMode(StopPlace stopPlace, Enum<?> subMode) {
+        if (subMode instanceof AirSubmodeEnumeration air) {
+            stopPlace.setAirSubmode(air);
+        } else if (subMode instanceof WaterSubmodeEnumeration water) {
+            stopPlace.setWaterSubmode(water);
+        } else if (subMode instanceof BusSubmodeEnumeration bus) {
+            stopPlace.setBusSubmode(bus);
+        } else if (subMode instanceof RailSubmodeEnumeration rail) {
+            stopPlace.setRailSubmode(rail);
+        } else if (subMode instanceof MetroSubmodeEnumeration metro) {
+            stopPlace.setMetroSubmode(metro);
+        } else if (subMode instanceof TramSubmodeEnumeration tram) {
+            stopPlace.setTramSubmode(tram);
+        }
+    }
+
+    private static <T> T pick(Random random, T[] values) {
+        return values.length == 0 ? null : values[random.nextInt(values.length)];
+    }
+}
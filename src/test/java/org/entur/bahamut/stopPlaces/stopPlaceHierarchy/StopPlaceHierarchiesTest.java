@@ -0,0 +1,146 @@
+package org.entur.bahamut.stopPlaces.stopPlaceHierarchy;
+
+import org.entur.bahamut.netex.NetexStopPlaces;
+import org.junit.jupiter.api.Test;
+import org.rutebanken.netex.model.GroupsOfStopPlacesInFrame_RelStructure;
+import org.rutebanken.netex.model.MultilingualString;
+import org.rutebanken.netex.model.SiteFrame;
+import org.rutebanken.netex.model.SiteRefStructure;
+import org.rutebanken.netex.model.StopPlace;
+import org.rutebanken.netex.model.StopPlacesInFrame_RelStructure;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+
+class StopPlaceHierarchiesTest {
+
+    @Test
+    void childWithMissingParentIsLeftOut() {
+        StopPlaceHierarchyIndex hierarchies = StopPlaceHierarchies.create(List.of(
+                stopPlace("NSR:StopPlace:1", null),
+                stopPlace("NSR:StopPlace:2", "NSR:StopPlace:404")));
+
+        assertEquals(List.of("NSR:StopPlace:1"), ids(hierarchies));
+        assertEquals(1, hierarchies.orphans());
+    }
+
+    @Test
+    void childOfChildWithMissingParentIsLeftOut() {
+        StopPlaceHierarchyIndex hierarchies = StopPlaceHierarchies.create(List.of(
+                stopPlace("NSR:StopPlace:1", "NSR:StopPlace:2"),
+                stopPlace("NSR:StopPlace:2", "NSR:StopPlace:404")));
+
+        assertEquals(List.of(), ids(hierarchies));
+        assertEquals(2, hierarchies.orphans());
+    }
+
+    @Test
+    void parentCycleIsLeftOut() {
+        StopPlaceHierarchyIndex hierarchies = StopPlaceHierarchies.create(List.of(
+                stopPlace("NSR:StopPlace:1", "NSR:StopPlace:3"),
+                stopPlace("NSR:StopPlace:2", "NSR:StopPlace:1"),
+                stopPlace("NSR:StopPlace:3", "NSR:StopPlace:2"),
+                stopPlace("NSR:StopPlace:4", "NSR:StopPlace:3"),
+                stopPlace("NSR:StopPlace:5", null)));
+
+        assertEquals(List.of("NSR:StopPlace:5"), ids(hierarchies));
+        assertEquals(4, hierarchies.orphans());
+    }
+
+    @Test
+    void duplicateIdKeepsFirstOccurrence() {
+        StopPlace duplicate = stopPlace("NSR:StopPlace:1", null)
+                .withName(new MultilingualString().withLang("nor").withValue("Duplicate"));
+        StopPlaceHierarchyIndex hierarchies = StopPlaceHierarchies.create(List.of(
+                stopPlace("NSR:StopPlace:1", null),
+                stopPlace("NSR:StopPlace:2", "NSR:StopPlace:1"),
+                duplicate,
+                stopPlace("NSR:StopPlace:3", "NSR:StopPlace:2"),
+                stopPlace("NSR:StopPlace:4", "NSR:StopPlace:1")));
+
+        assertEquals(List.of("NSR:StopPlace:1", "NSR:StopPlace:2", "NSR:StopPlace:3", "NSR:StopPlace:4"), ids(hierarchies));
+        assertEquals(1, hierarchies.duplicates());
+        assertEquals(0, hierarchies.orphans());
+        assertEquals("NSR:StopPlace:1", hierarchies.get(0).place().getName().getValue());
+        assertEquals(List.of("NSR:StopPlace:2", "NSR:StopPlace:4"), ids(hierarchies.get(0).children()));
+        assertEquals(List.of("NSR:StopPlace:3"), ids(hierarchies.get(1).children()));
+        assertEquals("NSR:StopPlace:2", hierarchies.get(2).parent().place().getId());
+        assertEquals("NSR:StopPlace:1", hierarchies.get(3).parent().place().getId());
+    }
+
+    @Test
+    void parentInAnotherSiteFrame() {
+        SiteFrame childFrame = siteFrame(
+                stopPlace("NSR:StopPlace:2", "NSR:StopPlace:1"),
+                stopPlace("NSR:StopPlace:3", "NSR:StopPlace:404"));
+        SiteFrame parentFrame = siteFrame(
+                stopPlace("NSR:StopPlace:1", null));
+
+        StopPlaceHierarchyIndex hierarchies = StopPlaceHierarchies.create(
+                NetexStopPlaces.of(List.of(childFrame, parentFrame)).stopPlaces());
+
+        assertEquals(List.of("NSR:StopPlace:2", "NSR:StopPlace:1"), ids(hierarchies));
+        assertEquals(hierarchies.get(1), hierarchies.get(0).parent());
+        assertEquals(1, hierarchies.orphans());
+        assertEquals(1, hierarchies.unresolvedParentRefs());
+    }
+
+    @Test
+    void rootsAreNotUnresolvedParentRefs() {
+        StopPlaceHierarchyIndex hierarchies = StopPlaceHierarchies.create(List.of(
+                stopPlace("NSR:StopPlace:1", null),
+                stopPlace("NSR:StopPlace:2", null),
+                stopPlace("NSR:StopPlace:3", "NSR:StopPlace:2")));
+
+        assertEquals(0, hierarchies.orphans());
+        assertEquals(0, hierarchies.unresolvedParentRefs());
+    }
+
+    @Test
+    void threeLevelHierarchy() {
+        StopPlaceHierarchyIndex hierarchies = StopPlaceHierarchies.create(List.of(
+                stopPlace("NSR:StopPlace:3", "NSR:StopPlace:2"),
+                stopPlace("NSR:StopPlace:1", null),
+                stopPlace("NSR:StopPlace:2", "NSR:StopPlace:1")));
+
+        assertEquals(List.of("NSR:StopPlace:3", "NSR:StopPlace:1", "NSR:StopPlace:2"), ids(hierarchies));
+        assertEquals(0, hierarchies.orphans());
+
+        StopPlaceHierarchy grandChild = hierarchies.get(0);
+        StopPlaceHierarchy root = hierarchies.get(1);
+        StopPlaceHierarchy child = hierarchies.get(2);
+
+        assertNull(root.parent());
+        assertEquals(root, child.parent());
+        assertEquals(child, grandChild.parent());
+        assertEquals(List.of(child), root.children());
+        assertEquals(List.of(grandChild), child.children());
+        assertEquals(List.of(), grandChild.children());
+
+        assertEquals(List.of("NSR:StopPlace:3", "NSR:StopPlace:2", "NSR:StopPlace:1"), names(grandChild));
+        assertEquals(List.of("NSR:StopPlace:1", "NSR:StopPlace:2", "NSR:StopPlace:3"), names(root));
+    }
+
+    private static StopPlace stopPlace(String id, String parentId) {
+        return new StopPlace()
+                .withId(id)
+                .withName(new MultilingualString().withLang("nor").withValue(id))
+                .withParentSiteRef(parentId == null ? null : new SiteRefStructure().withRef(parentId));
+    }
+
+    private static SiteFrame siteFrame(StopPlace... stopPlaces) {
+        return new SiteFrame()
+                .withStopPlaces(new StopPlacesInFrame_RelStructure().withStopPlace(stopPlaces))
+                .withGroupsOfStopPlaces(new GroupsOfStopPlacesInFrame_RelStructure());
+    }
+
+    private static List<String> ids(List<StopPlaceHierarchy> hierarchies) {
+        return hierarchies.stream().map(hierarchy -> hierarchy.place().getId()).toList();
+    }
+
+    private static List<String> names(StopPlaceHierarchy hierarchy) {
+        return hierarchy.names().stream().map(MultilingualString::getValue).toList();
+    }
+}